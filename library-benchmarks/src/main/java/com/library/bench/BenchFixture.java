@@ -0,0 +1,167 @@
+package com.library.bench;
+
+import com.library.LibrarySystemApplication;
+import com.library.service.BookSearchIndex;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// ================= BENCHMARK FIXTURE =================
+// Boots the real application against an in-memory H2 (MySQL mode) and the local Cloudinary stub,
+// then seeds a deterministic book catalogue. The same seed and size always produce the same rows,
+// so numbers from different runs and branches are comparable.
+public final class BenchFixture implements AutoCloseable {
+    public static final long SEED = 20240301L;
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int INSERT_BATCH = 2000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    // Fixed HS256 key (64 bytes, Base64) so tokens are identical between runs
+    public static final String JWT_SECRET =
+            "YmVuY2htYXJrLXNlY3JldC1iZW5jaG1hcmstc2VjcmV0LWJlbmNobWFyay1zZWNyZXQtYmVuY2htYXJrLXNlY3JldA==";
+
+    private final StubCloudinaryServer stub;
+    private final ConfigurableApplicationContext context;
+    private final List<String> vocabulary;
+
+    private BenchFixture(StubCloudinaryServer stub, ConfigurableApplicationContext context, List<String> vocabulary) {
+        this.stub = stub;
+        this.context = context;
+        this.vocabulary = vocabulary;
+    }
+
+    public static BenchFixture start(int books) throws IOException {
+        return start(books, Map.of(), Duration.ZERO);
+    }
+
+    // overrides: extra application properties; stubLatency: delay of every stub Cloudinary reply
+    public static BenchFixture start(int books, Map<String, Object> overrides, Duration stubLatency) throws IOException {
+        StubCloudinaryServer stub = StubCloudinaryServer.start(stubLatency);
+        SpringApplication app = new SpringApplication(LibrarySystemApplication.class);
+        app.setBannerMode(Banner.Mode.OFF);
+        Map<String, Object> props = properties(stub);
+        props.putAll(overrides);
+        app.setDefaultProperties(props);
+        ConfigurableApplicationContext context = app.run();
+
+        BenchFixture fixture = new BenchFixture(stub, context, vocabulary());
+        fixture.seed(books);
+        // The startup rebuild may have run before seeding; index() skips books it already has
+        context.getBean(BookSearchIndex.class).rebuild();
+        return fixture;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public StubCloudinaryServer stub() {
+        return stub;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    // Word at the given frequency rank: 0 is the most common term in the catalogue
+    public String word(int rank) {
+        return vocabulary.get(rank);
+    }
+
+    static Map<String, Object> properties(StubCloudinaryServer stub) throws IOException {
+        Map<String, Object> props = new HashMap<>();
+        // One database per fixture: Flyway must start from an empty schema even when a JVM runs several
+        props.put("spring.datasource.url", "jdbc:h2:mem:library-bench-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        props.put("spring.datasource.username", "sa");
+        props.put("spring.datasource.password", "");
+        // Schema from the application's own H2 migrations, so indexes match production
+        props.put("spring.jpa.hibernate.ddl-auto", "none");
+        props.put("spring.flyway.locations", "classpath:db/migration/{vendor}");
+        // Same JDBC batching as application.properties, which is not on this module's classpath
+        props.put("spring.jpa.properties.hibernate.jdbc.batch_size", "50");
+        props.put("spring.jpa.properties.hibernate.order_inserts", "true");
+        props.put("spring.jpa.properties.hibernate.order_updates", "true");
+        props.put("spring.jpa.properties.hibernate.generate_statistics", "true");
+        props.put("server.port", "0");
+        props.put("logging.level.root", "WARN");
+        props.put("jwt.secret", JWT_SECRET);
+        props.put("jwt.expiration", "86400000");
+        props.put("app.admin.secret-key", "benchmark-admin-key");
+        props.put("rate-limit.enabled", "false"); // benchmarks drive one user from one IP
+        props.put("app.upload.spool-dir", Files.createTempDirectory("library-bench-spool").toString());
+        props.put("cloudinary.upload-prefix", stub.uploadPrefix());
+        for (int i = 0; i < 5; i++) {
+            props.put("cloudinary.accounts[" + i + "].cloud-name", "bench" + i);
+            props.put("cloudinary.accounts[" + i + "].api-key", "key" + i);
+            props.put("cloudinary.accounts[" + i + "].api-secret", "secret" + i);
+        }
+        return props;
+    }
+
+    // Pronounceable pseudo-words; index order doubles as frequency rank in the generated text
+    private static List<String> vocabulary() {
+        String[] syllables = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "ze", "pha", "dre", "qui", "bor", "len", "tas", "gim"};
+        Random random = new Random(SEED);
+        LinkedHashSet<String> words = new LinkedHashSet<>();
+        while (words.size() < VOCABULARY_SIZE) {
+            StringBuilder word = new StringBuilder();
+            int parts = 2 + random.nextInt(3);
+            for (int p = 0; p < parts; p++) word.append(syllables[random.nextInt(syllables.length)]);
+            words.add(word.toString());
+        }
+        return List.copyOf(words);
+    }
+
+    private void seed(int books) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Random random = new Random(SEED);
+        String sql = "INSERT INTO books (id, name, description, owner_id, public_id, account_index, size, format, view_url, "
+                + "download_url, created_at, updated_at, downloads, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < books; i++) {
+            String publicId = "library_books/bench-" + i;
+            Timestamp created = Timestamp.valueOf(EPOCH.plusSeconds(i * 30L));
+            batch.add(new Object[]{
+                    i + 1L, text(random, 2, 5), text(random, 15, 40), 1L + random.nextInt(500), publicId,
+                    i % 5, 100_000L + random.nextInt(20_000_000), "pdf",
+                    "https://res.cloudinary.com/bench/raw/upload/" + publicId + ".pdf",
+                    "https://res.cloudinary.com/bench/raw/upload/fl_attachment/" + publicId + ".pdf",
+                    created, created, random.nextInt(1000), i % 50 == 0 // 2% soft-deleted
+            });
+            if (batch.size() == INSERT_BATCH) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) jdbc.batchUpdate(sql, batch);
+        // Seeded ids bypass the pooled sequence; its value is the top of the next 50-id block
+        if (books > 0) jdbc.execute("ALTER SEQUENCE books_seq RESTART WITH " + (books + 50));
+    }
+
+    // Skewed word choice (roughly Zipfian) so common and rare terms behave like real text
+    private String text(Random random, int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            double r = random.nextDouble();
+            if (w > 0) text.append(' ');
+            text.append(vocabulary.get((int) (VOCABULARY_SIZE * r * r * r)));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        stub.close();
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.bench;
+
+import com.library.config.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// ================= JWT =================
+// Token signing and claims extraction. JwtUtils is wired in a minimal Spring context (no DB needed)
+// so @Value/@PostConstruct run exactly as in the application.
+// extractAllClaimsHit re-reads one token (verified-token cache hit, the steady state of a session);
+// extractAllClaimsMiss rotates through more distinct tokens than the cache holds (full HMAC + JSON parse).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private static final int DISTINCT_TOKENS = 4096;
+
+    private AnnotationConfigApplicationContext cachingContext;
+    private AnnotationConfigApplicationContext missingContext;
+    private JwtUtils jwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private UserDetails user;
+    private String token;
+    private String[] tokens;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        cachingContext = context(10_000);
+        missingContext = context(1);
+        jwtUtils = cachingContext.getBean(JwtUtils.class);
+        uncachedJwtUtils = missingContext.getBean(JwtUtils.class);
+
+        user = User.withUsername("bench-user").password("unused").roles("USER").build();
+        token = jwtUtils.generateToken(user, 1L, "USER");
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) tokens[i] = uncachedJwtUtils.generateToken(user, (long) i, "USER");
+    }
+
+    @TearDown
+    public void tearDown() {
+        cachingContext.close();
+        missingContext.close();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(user, 1L, "USER");
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsHit() {
+        return jwtUtils.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Claims extractAllClaimsMiss(Cursor cursor) {
+        String next = tokens[cursor.next++ & (DISTINCT_TOKENS - 1)];
+        return uncachedJwtUtils.extractAllClaims(next);
+    }
+
+    private static AnnotationConfigApplicationContext context(long verifiedCacheSize) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", Map.of(
+                "jwt.secret", BenchFixture.JWT_SECRET,
+                "jwt.expiration", "86400000",
+                "jwt.verified-cache.max-entries", String.valueOf(verifiedCacheSize))));
+        context.registerBean(SimpleMeterRegistry.class);
+        context.register(JwtUtils.class);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,370 @@
+package com.library.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ================= LOAD GENERATOR =================
+// Closed-loop HTTP workload against a running instance, normally started with the loadtest profile
+// (embedded H2 + in-app Cloudinary stub). Every virtual user registers and logs in once, then loops
+// over a weighted mix of register/login/search/getBook/download/upload until the stage ends.
+// Stages run with increasing user counts; the stage where req/s stops rising while p99 keeps
+// climbing is the saturation point of the box.
+//
+//   java -cp target/benchmarks.jar com.library.bench.LoadGenerator \
+//        --base-url=http://localhost:8080 --users=10,25,50,100 --duration=60 --warmup=10
+public final class LoadGenerator {
+    enum Endpoint { REGISTER, LOGIN, SEARCH, GET_BOOK, DOWNLOAD, UPLOAD }
+
+    private static final String DEFAULT_MIX = "search:40,getBook:25,download:15,login:8,register:2,upload:10";
+    private static final String PASSWORD = "loadtest-password";
+    private static final String[] WORDS = {
+            "java", "spring", "distributed", "systems", "algorithms", "database", "network", "security",
+            "compiler", "design", "patterns", "cloud", "kernel", "graphics", "learning", "theory"};
+
+    private final String baseUrl;
+    private final Map<Endpoint, Integer> mix;
+    private final int mixTotal;
+    private final byte[] payload;
+    private final long seed;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong registrations = new AtomicLong();
+    private final List<Long> bookIds = new ArrayList<>();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper json = new ObjectMapper();
+
+    private LoadGenerator(String baseUrl, Map<Endpoint, Integer> mix, int uploadBytes, long seed) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.mix = mix;
+        this.mixTotal = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.seed = seed;
+        this.payload = new byte[uploadBytes];
+        new Random(seed).nextBytes(payload);
+        byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, payload, 0, Math.min(header.length, payload.length));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        String baseUrl = opts.getOrDefault("base-url", "http://localhost:8080");
+        int[] stages = Arrays.stream(opts.getOrDefault("users", "10,25,50,100").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("duration", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("warmup", "10")));
+        int uploadBytes = Integer.parseInt(opts.getOrDefault("upload-bytes", "262144"));
+        int seedBooks = Integer.parseInt(opts.getOrDefault("seed-books", "50"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        String csv = opts.get("csv");
+
+        LoadGenerator generator = new LoadGenerator(baseUrl, parseMix(opts.getOrDefault("mix", DEFAULT_MIX)), uploadBytes, seed);
+        generator.prepare(seedBooks);
+        for (int users : stages) {
+            StageResult result = generator.runStage(users, warmup, duration);
+            result.print();
+            if (csv != null) result.appendCsv(Path.of(csv));
+        }
+    }
+
+    // Seeds a catalogue so search/getBook/download have something to hit from the first request
+    private void prepare(int books) throws Exception {
+        VirtualUser seeder = new VirtualUser(-1, new Random(seed));
+        seeder.registerAndLogin();
+        for (int i = 0; i < books; i++) {
+            if (!seeder.upload()) throw new IllegalStateException("Seeding upload failed; is the server running with the loadtest profile?");
+        }
+        System.out.println("Seeded " + books + " books against " + baseUrl);
+    }
+
+    private StageResult runStage(int users, Duration warmup, Duration duration) throws Exception {
+        List<VirtualUser> vus = new ArrayList<>();
+        for (int i = 0; i < users; i++) vus.add(new VirtualUser(i, new Random(seed * 31 + i)));
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (VirtualUser vu : vus) running.add(pool.submit(() -> vu.run(measureFrom, end)));
+            for (Future<?> f : running) f.get();
+        }
+
+        StageResult result = new StageResult(users, duration);
+        for (VirtualUser vu : vus) result.merge(vu);
+        return result;
+    }
+
+    private static Map<Endpoint, Integer> parseMix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            String name = kv[0].replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+            mix.put(Endpoint.valueOf(name), Integer.parseInt(kv[1]));
+        }
+        return mix;
+    }
+
+    private Endpoint pick(Random random) {
+        int r = random.nextInt(mixTotal);
+        for (Map.Entry<Endpoint, Integer> e : mix.entrySet()) {
+            r -= e.getValue();
+            if (r < 0) return e.getKey();
+        }
+        return Endpoint.SEARCH;
+    }
+
+    private Long randomBookId(Random random) {
+        synchronized (bookIds) {
+            return bookIds.isEmpty() ? null : bookIds.get(random.nextInt(bookIds.size()));
+        }
+    }
+
+    private String words(Random random, int count) {
+        StringJoiner text = new StringJoiner(" ");
+        for (int i = 0; i < count; i++) text.add(WORDS[random.nextInt(WORDS.length)]);
+        return text.toString();
+    }
+
+    // ================= VIRTUAL USER =================
+    // Latencies are kept per user and merged after the stage, so recording never contends
+    private final class VirtualUser {
+        final int index;
+        final Random random;
+        final Map<Endpoint, LongList> latencies = new EnumMap<>(Endpoint.class);
+        final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+        String username;
+        String token;
+
+        VirtualUser(int index, Random random) {
+            this.index = index;
+            this.random = random;
+        }
+
+        void run(long measureFrom, long end) {
+            try {
+                registerAndLogin();
+            } catch (Exception e) {
+                System.err.println("Virtual user " + index + " could not log in: " + e.getMessage());
+                return;
+            }
+            while (System.nanoTime() < end) {
+                Endpoint endpoint = pick(random);
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = execute(endpoint);
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long finished = System.nanoTime();
+                if (start < measureFrom || finished > end) continue;
+                if (ok) latencies.computeIfAbsent(endpoint, k -> new LongList()).add(finished - start);
+                else errors.merge(endpoint, 1L, Long::sum);
+            }
+        }
+
+        void registerAndLogin() throws Exception {
+            username = newUsername();
+            if (!register(username)) throw new IllegalStateException("register failed for " + username);
+            if (!login()) throw new IllegalStateException("login failed for " + username);
+        }
+
+        boolean execute(Endpoint endpoint) throws Exception {
+            return switch (endpoint) {
+                case REGISTER -> register(newUsername());
+                case LOGIN -> login();
+                case SEARCH -> get("/api/books/search?size=20&q=" + URLEncoder.encode(words(random, 1 + random.nextInt(2)), StandardCharsets.UTF_8));
+                case GET_BOOK -> bookRequest("");
+                case DOWNLOAD -> bookRequest("/download");
+                case UPLOAD -> upload();
+            };
+        }
+
+        String newUsername() {
+            return "lt-" + runId + "-" + registrations.incrementAndGet();
+        }
+
+        boolean register(String name) throws Exception {
+            String body = json.writeValueAsString(Map.of("username", name, "email", name + "@loadtest.local", "password", PASSWORD));
+            return send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))).statusCode() == 200;
+        }
+
+        boolean login() throws Exception {
+            String body = json.writeValueAsString(Map.of("username", username, "password", PASSWORD));
+            HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/api/auth/login"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)));
+            if (response.statusCode() != 200) return false;
+            token = json.readTree(response.body()).path("token").asText();
+            return true;
+        }
+
+        boolean bookRequest(String suffix) throws Exception {
+            Long id = randomBookId(random);
+            return id != null && get("/api/books/" + id + suffix);
+        }
+
+        boolean get(String path) throws Exception {
+            return send(authorized(HttpRequest.newBuilder(uri(path))).GET()).statusCode() == 200;
+        }
+
+        boolean upload() throws Exception {
+            String boundary = "----loadtest" + Long.toHexString(random.nextLong());
+            byte[] body = multipart(boundary, words(random, 3), words(random, 12), payload);
+            HttpResponse<byte[]> response = send(authorized(HttpRequest.newBuilder(uri("/api/books")))
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body)));
+            if (response.statusCode() != 200) return false;
+            JsonNode book = json.readTree(response.body());
+            synchronized (bookIds) {
+                bookIds.add(book.path("id").asLong());
+            }
+            return true;
+        }
+
+        HttpRequest.Builder authorized(HttpRequest.Builder request) {
+            return token == null ? request : request.header("Authorization", "Bearer " + token);
+        }
+
+        HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+            return http.send(request.timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    // Body for POST /api/books (name, description, file); shared with ThreadModeBenchmark
+    static byte[] multipart(String boundary, String name, String description, byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length + 512);
+        String fields = "--" + boundary + "\r\nContent-Disposition: form-data; name=\"name\"\r\n\r\n" + name + "\r\n"
+                + "--" + boundary + "\r\nContent-Disposition: form-data; name=\"description\"\r\n\r\n" + description + "\r\n"
+                + "--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"loadtest.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n";
+        out.writeBytes(fields.getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(payload);
+        out.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    // ================= REPORTING =================
+    private static final class StageResult {
+        final int users;
+        final Duration duration;
+        final Map<Endpoint, LongList> latencies = new EnumMap<>(Endpoint.class);
+        final Map<Endpoint, Long> errors = new EnumMap<>(Endpoint.class);
+
+        StageResult(int users, Duration duration) {
+            this.users = users;
+            this.duration = duration;
+        }
+
+        void merge(VirtualUser vu) {
+            vu.latencies.forEach((endpoint, list) -> latencies.computeIfAbsent(endpoint, k -> new LongList()).addAll(list));
+            vu.errors.forEach((endpoint, count) -> errors.merge(endpoint, count, Long::sum));
+        }
+
+        List<String[]> rows() {
+            List<String[]> rows = new ArrayList<>();
+            LongList all = new LongList();
+            long allErrors = 0;
+            for (Endpoint endpoint : Endpoint.values()) {
+                LongList list = latencies.getOrDefault(endpoint, new LongList());
+                long errorCount = errors.getOrDefault(endpoint, 0L);
+                if (list.size == 0 && errorCount == 0) continue;
+                rows.add(row(endpoint.name().toLowerCase(Locale.ROOT), list, errorCount));
+                all.addAll(list);
+                allErrors += errorCount;
+            }
+            rows.add(row("total", all, allErrors));
+            return rows;
+        }
+
+        String[] row(String name, LongList list, long errorCount) {
+            long[] sorted = list.sorted();
+            double seconds = duration.toMillis() / 1000.0;
+            return new String[]{name, String.valueOf(sorted.length), String.valueOf(errorCount),
+                    String.format(Locale.ROOT, "%.1f", sorted.length / seconds),
+                    millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                    millis(percentile(sorted, 0.999)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1])};
+        }
+
+        void print() {
+            System.out.printf(Locale.ROOT, "%n=== %d users, %ds measured ===%n", users, duration.toSeconds());
+            System.out.printf(Locale.ROOT, "%-10s %9s %7s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            for (String[] r : rows()) {
+                System.out.printf(Locale.ROOT, "%-10s %9s %7s %9s %9s %9s %9s %9s%n", (Object[]) r);
+            }
+        }
+
+        void appendCsv(Path file) {
+            try {
+                StringBuilder out = new StringBuilder();
+                if (!Files.exists(file)) out.append("users,endpoint,count,errors,rps,p50_ms,p99_ms,p999_ms,max_ms\n");
+                for (String[] r : rows()) out.append(users).append(',').append(String.join(",", r)).append('\n');
+                Files.writeString(file, out, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static long percentile(long[] sorted, double q) {
+            if (sorted.length == 0) return 0;
+            int rank = (int) Math.ceil(q * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+        }
+
+        static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+        }
+    }
+
+    private static final class LongList {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
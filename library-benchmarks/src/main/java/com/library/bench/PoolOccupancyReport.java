@@ -0,0 +1,106 @@
+package com.library.bench;
+
+import com.library.dto.LibraryDtos;
+import com.library.model.User;
+import com.library.repository.UserRepository;
+import com.library.service.BookService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ================= POOL OCCUPANCY =================
+// Starts more concurrent BookService.uploadBook calls than the Hikari pool has connections while
+// every stub Cloudinary reply takes latencyMs. Meanwhile it samples the active connection count
+// and times a DB-backed listing. An upload must only hold a connection for its short DB phases,
+// so the peak stays well below the pool size and the reads stay fast. Exits with status 1 if the
+// pool ever runs full. UploadConnectionTest (library-system) asserts that no connection is held
+// during the Cloudinary call; this tool measures occupancy and read latency under real latency.
+//
+//   java -cp target/benchmarks.jar com.library.bench.PoolOccupancyReport [uploads] [latencyMs]
+public final class PoolOccupancyReport {
+
+    public static void main(String[] args) throws Exception {
+        int uploads = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        boolean saturated;
+        try (BenchFixture fixture = BenchFixture.start(1000, Map.of(), Duration.ofMillis(latencyMs))) {
+            HikariDataSource dataSource = fixture.bean(DataSource.class).unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            BookService bookService = fixture.bean(BookService.class);
+            User owner = fixture.bean(UserRepository.class).save(User.builder()
+                    .username("pool").email("pool@bench.local").password("unused")
+                    .role(User.Role.USER).active(true).createdAt(LocalDateTime.now()).build());
+
+            File file = Files.createTempFile("library-bench-", ".pdf").toFile();
+            Files.write(file.toPath(), new byte[64 * 1024]);
+            LibraryDtos.BookUploadRequest metadata = new LibraryDtos.BookUploadRequest();
+            metadata.setName("Pool occupancy");
+            metadata.setDescription("Upload held open by the stub latency");
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger peakActive = new AtomicInteger();
+            List<Integer> samples = new ArrayList<>();
+            Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+                while (running.get()) {
+                    int active = pool.getActiveConnections();
+                    peakActive.accumulateAndGet(active, Math::max);
+                    synchronized (samples) { samples.add(active); }
+                    try { Thread.sleep(5); } catch (InterruptedException e) { return; }
+                }
+            });
+
+            List<Long> readMillis = new ArrayList<>();
+            int failed = 0;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<LibraryDtos.BookResponse>> inFlight = new ArrayList<>();
+                for (int i = 0; i < uploads; i++) {
+                    inFlight.add(executor.submit(() -> bookService.uploadBook(metadata, file, owner.getId())));
+                }
+                // Reads issued while the uploads wait on Cloudinary
+                while (inFlight.stream().anyMatch(f -> !f.isDone())) {
+                    long start = System.nanoTime();
+                    bookService.searchBooks(null, PageRequest.of(0, 20));
+                    readMillis.add((System.nanoTime() - start) / 1_000_000);
+                    Thread.sleep(20);
+                }
+                for (Future<LibraryDtos.BookResponse> upload : inFlight) {
+                    try { upload.get(); } catch (Exception e) { failed++; }
+                }
+            } finally {
+                running.set(false);
+                sampler.join();
+                Files.deleteIfExists(file.toPath());
+            }
+
+            double meanActive;
+            synchronized (samples) { meanActive = samples.stream().mapToInt(Integer::intValue).average().orElse(0); }
+            long maxRead = readMillis.stream().mapToLong(Long::longValue).max().orElse(0);
+            int poolSize = dataSource.getMaximumPoolSize();
+            saturated = peakActive.get() >= poolSize;
+
+            System.out.printf(Locale.ROOT, "%n%d concurrent uploads, %d ms Cloudinary latency, pool size %d%n", uploads, latencyMs, poolSize);
+            System.out.printf(Locale.ROOT, "%-28s %d%n", "failed uploads", failed);
+            System.out.printf(Locale.ROOT, "%-28s %d%n", "peak active connections", peakActive.get());
+            System.out.printf(Locale.ROOT, "%-28s %.2f%n", "mean active connections", meanActive);
+            System.out.printf(Locale.ROOT, "%-28s %d reads, max %d ms%n", "listing during uploads", readMillis.size(), maxRead);
+            System.out.println(saturated ? "\nThe pool ran full while uploads were in flight." : "\nPool occupancy stayed below the pool size.");
+        }
+        System.exit(saturated ? 1 : 0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.library.bench;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// ================= QUERY PLAN CHECK =================
+// Runs EXPLAIN on the SQL behind each indexed repository method and exits with status 1 if any of
+// them falls back to a full table scan (H2: "tableScan", MySQL: access type ALL).
+// Without arguments it checks the H2 benchmark fixture (100k books, schema from the Flyway
+// migrations); with a JDBC URL it checks an already-migrated MySQL database instead.
+// The SQL below is hand-written; QueryPlanTest in library-system runs EXPLAIN on the statements
+// the repositories really send (H2) and is what the build enforces. This tool is for MySQL.
+//
+//   java -cp target/benchmarks.jar com.library.bench.QueryPlanCheck
+//   java -cp target/benchmarks.jar com.library.bench.QueryPlanCheck jdbc:mysql://host:3306/db user password
+public final class QueryPlanCheck {
+
+    // Repository method -> equivalent of the SQL Hibernate generates for it
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("BookRepository.findByOwnerIdAndDeletedFalse",
+                "SELECT * FROM books WHERE owner_id = 7 AND deleted = FALSE ORDER BY created_at DESC LIMIT 20");
+        QUERIES.put("BookRepository.findByOwnerId",
+                "SELECT * FROM books WHERE owner_id = 7");
+        QUERIES.put("BookRepository.findByDeletedFalse",
+                "SELECT id, name, created_at FROM books WHERE deleted = FALSE ORDER BY created_at DESC LIMIT 20 OFFSET 4000");
+        QUERIES.put("BookRepository.countByDeletedFalse",
+                "SELECT COUNT(*) FROM books WHERE deleted = FALSE");
+        QUERIES.put("BookRepository.findLatestBefore",
+                "SELECT id, name, created_at FROM books WHERE deleted = FALSE AND (created_at < '2024-01-20 00:00:00' "
+                        + "OR (created_at = '2024-01-20 00:00:00' AND id < 50000)) ORDER BY created_at DESC, id DESC LIMIT 21");
+        QUERIES.put("BookRepository.sumSizeByAccountIndex",
+                "SELECT account_index, SUM(size) FROM books WHERE deleted = FALSE GROUP BY account_index");
+        QUERIES.put("BookRepository.findSearchDocumentsAfter",
+                "SELECT id, name, description FROM books WHERE deleted = FALSE AND id > 50000 ORDER BY id LIMIT 5000");
+        QUERIES.put("PasswordResetRepository.findFirstByEmail",
+                "SELECT * FROM password_reset_token WHERE email = 'reader@example.com' LIMIT 1");
+        QUERIES.put("PasswordResetRepository.deleteByExpiresAtBefore",
+                "SELECT id FROM password_reset_token WHERE expires_at < '2024-01-20 00:00:00'");
+        QUERIES.put("PendingRemoteDeleteRepository.findDue",
+                "SELECT * FROM pending_remote_delete WHERE next_attempt_at <= '2024-01-20 00:00:00' ORDER BY next_attempt_at LIMIT 1000");
+        QUERIES.put("UserRepository.findByUsername",
+                "SELECT * FROM users WHERE username = 'reader'");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int failures;
+        if (args.length > 0) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(args[0],
+                    args.length > 1 ? args[1] : null, args.length > 2 ? args[2] : null);
+            failures = check(new JdbcTemplate(dataSource));
+        } else {
+            try (BenchFixture fixture = BenchFixture.start(100_000)) {
+                failures = check(fixture.bean(JdbcTemplate.class));
+            }
+        }
+        System.out.println(failures == 0 ? "\nAll queries use an index." : "\n" + failures + " queries fall back to a full scan.");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static int check(JdbcTemplate jdbc) {
+        String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        boolean mysql = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+        int failures = 0;
+        for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+            List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + query.getValue());
+            boolean fullScan = plan.stream().anyMatch(row -> mysql
+                    ? "ALL".equalsIgnoreCase(String.valueOf(row.get("type")))
+                    : row.values().stream().anyMatch(v -> String.valueOf(v).contains("tableScan")));
+            if (fullScan) failures++;
+            System.out.printf(Locale.ROOT, "%-4s %-45s %s%n", fullScan ? "FAIL" : "ok", query.getKey(), plan);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,95 @@
+package com.library.bench;
+
+import com.library.dto.LibraryDtos;
+import com.library.repository.BookRepository;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+// ================= SEARCH =================
+// BookService.searchBooks over the seeded H2 catalogue (default 100k books, 2% soft-deleted).
+// Index-backed queries are measured next to the SQL LIKE fallback (searchActive) and the
+// unfiltered listing, for a frequent term, a rare term, a two-word query and a typed prefix.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"100000"})
+    public int books;
+
+    private BenchFixture fixture;
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private final Pageable firstPage = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+    private final Pageable deepPage = PageRequest.of(200, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+    private String commonTerm;
+    private String rareTerm;
+    private String twoWords;
+    private String prefix;
+
+    @Setup
+    public void setup() throws Exception {
+        fixture = BenchFixture.start(books);
+        bookService = fixture.bean(BookService.class);
+        bookRepository = fixture.bean(BookRepository.class);
+        commonTerm = fixture.word(0);
+        rareTerm = fixture.word(4000);
+        twoWords = fixture.word(3) + " " + fixture.word(40);
+        prefix = fixture.word(10).substring(0, 3);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Page<LibraryDtos.BookResponse> listFirstPage() {
+        return bookService.searchBooks(null, firstPage);
+    }
+
+    @Benchmark
+    public Page<LibraryDtos.BookResponse> listDeepPage() {
+        return bookService.searchBooks(null, deepPage);
+    }
+
+    @Benchmark
+    public LibraryDtos.CursorPage<LibraryDtos.BookResponse> scrollFirstPage() {
+        return bookService.scrollBooks(null, null, 20, false);
+    }
+
+    @Benchmark
+    public Page<LibraryDtos.BookResponse> searchCommonTerm() {
+        return bookService.searchBooks(commonTerm, firstPage);
+    }
+
+    @Benchmark
+    public Page<LibraryDtos.BookResponse> searchRareTerm() {
+        return bookService.searchBooks(rareTerm, firstPage);
+    }
+
+    @Benchmark
+    public Page<LibraryDtos.BookResponse> searchTwoWords() {
+        return bookService.searchBooks(twoWords, firstPage);
+    }
+
+    @Benchmark
+    public Page<LibraryDtos.BookResponse> searchPrefix() {
+        return bookService.searchBooks(prefix, firstPage);
+    }
+
+    // The pre-index SQL path, kept to show what the index saves
+    @Benchmark
+    public Page<BookRepository.BookSummary> sqlFallbackCommonTerm() {
+        return bookRepository.searchActive(commonTerm, firstPage);
+    }
+}
@@ -0,0 +1,85 @@
+package com.library.bench;
+
+import com.library.dto.LibraryDtos;
+import com.library.model.Book;
+import com.library.model.User;
+import com.library.repository.BookRepository;
+import com.library.repository.UserRepository;
+import com.library.service.BookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// ================= STATEMENT COUNTS =================
+// Counts the JDBC statements Hibernate prepares per BookService.uploadBook and per bulk saveAll.
+// It runs once with batching disabled (batch_size=1) and once with the application's settings.
+// With batching, every group of same-table INSERTs is one prepared statement, so a saveAll of
+// n books costs one statement instead of n.
+// BookStatementCountTest (library-system) asserts the batched numbers; this tool prints both.
+//
+//   java -cp target/benchmarks.jar com.library.bench.StatementCountReport [uploads] [bulkSize]
+public final class StatementCountReport {
+    private record Counts(double perUpload, long bulk, long bulkInserts) {}
+
+    public static void main(String[] args) throws Exception {
+        int uploads = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int bulkSize = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Counts unbatched = measure(Map.of("spring.jpa.properties.hibernate.jdbc.batch_size", "1"), uploads, bulkSize);
+        Counts batched = measure(Map.of(), uploads, bulkSize);
+
+        System.out.printf(Locale.ROOT, "%n%-34s %12s %12s%n", "prepared statements", "unbatched", "batched");
+        System.out.printf(Locale.ROOT, "%-34s %12.1f %12.1f%n", "per uploadBook", unbatched.perUpload(), batched.perUpload());
+        System.out.printf(Locale.ROOT, "%-34s %12d %12d%n", "per saveAll of " + bulkSize + " books", unbatched.bulk(), batched.bulk());
+        System.out.printf(Locale.ROOT, "%-34s %12d %12d%n", "entity inserts in that saveAll", unbatched.bulkInserts(), batched.bulkInserts());
+    }
+
+    private static Counts measure(Map<String, Object> overrides, int uploads, int bulkSize) throws Exception {
+        try (BenchFixture fixture = BenchFixture.start(0, overrides, Duration.ZERO)) {
+            Statistics stats = fixture.bean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            User owner = fixture.bean(UserRepository.class).save(User.builder()
+                    .username("statements").email("statements@bench.local").password("unused")
+                    .role(User.Role.USER).active(true).createdAt(LocalDateTime.now()).build());
+
+            File file = Files.createTempFile("library-bench-", ".pdf").toFile();
+            Files.write(file.toPath(), new byte[16 * 1024]);
+            try {
+                BookService bookService = fixture.bean(BookService.class);
+                LibraryDtos.BookUploadRequest metadata = new LibraryDtos.BookUploadRequest();
+                metadata.setName("Statement count");
+                metadata.setDescription("Upload used to count JDBC statements");
+                bookService.uploadBook(metadata, file, owner.getId()); // warm up: first sequence block, caches
+
+                stats.clear();
+                for (int i = 0; i < uploads; i++) bookService.uploadBook(metadata, file, owner.getId());
+                double perUpload = (double) stats.getPrepareStatementCount() / uploads;
+
+                List<Book> books = new ArrayList<>();
+                for (int i = 0; i < bulkSize; i++) {
+                    books.add(Book.builder()
+                            .name("Bulk " + i).description("Bulk insert").ownerId(owner.getId())
+                            .publicId("library_books/bulk-" + i).format("pdf").size(1024)
+                            .createdAt(LocalDateTime.now()).build());
+                }
+                BookRepository bookRepository = fixture.bean(BookRepository.class);
+                TransactionTemplate tx = new TransactionTemplate(fixture.bean(PlatformTransactionManager.class));
+                stats.clear();
+                tx.executeWithoutResult(status -> bookRepository.saveAll(books));
+                return new Counts(perUpload, stats.getPrepareStatementCount(), stats.getEntityInsertCount());
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+}
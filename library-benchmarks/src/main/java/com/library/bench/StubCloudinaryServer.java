@@ -0,0 +1,111 @@
+package com.library.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ================= STUB CLOUDINARY =================
+// Local HTTP endpoint answering Cloudinary's upload/destroy/bulk delete calls, so CloudinaryManager.uploadFile
+// is measured end to end (multipart encoding, HTTP client, failover bookkeeping) without the network.
+// It has to be up before the Spring context starts, because the upload prefix is read at bean init.
+public final class StubCloudinaryServer implements AutoCloseable {
+    private final HttpServer server;
+    private final Duration latency;
+    private final AtomicLong receivedBytes = new AtomicLong();
+
+    private StubCloudinaryServer(HttpServer server, Duration latency) {
+        this.server = server;
+        this.latency = latency;
+    }
+
+    public static StubCloudinaryServer start() throws IOException {
+        return start(Duration.ZERO);
+    }
+
+    // latency: added to every reply, to model the Cloudinary round trip the app blocks on
+    public static StubCloudinaryServer start(Duration latency) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        StubCloudinaryServer stub = new StubCloudinaryServer(server, latency);
+        server.createContext("/v1_1/", stub::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        return stub;
+    }
+
+    // Value for cloudinary.upload-prefix
+    public String uploadPrefix() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long receivedBytes() {
+        return receivedBytes.get();
+    }
+
+    // Paths look like /v1_1/{cloudName}/{resourceType}/{action}; bulk deletes are
+    // /v1_1/{cloudName}/resources/{resourceType}/{type}, which the Java client sends as a form
+    // POST with _method=delete and public_ids[] parameters
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String cloudName = path.length > 2 ? path[2] : "bench";
+            String action = path[path.length - 1];
+            boolean bulkDelete = path.length > 3 && "resources".equals(path[3]);
+            String form = "";
+            if (bulkDelete) {
+                byte[] bytes = body.readAllBytes();
+                receivedBytes.addAndGet(bytes.length);
+                form = new String(bytes, StandardCharsets.UTF_8);
+            } else {
+                receivedBytes.addAndGet(body.transferTo(OutputStream.nullOutputStream()));
+            }
+            if (!latency.isZero()) Thread.sleep(latency);
+
+            String json;
+            if (bulkDelete) {
+                json = "{\"deleted\":{" + deletedIds(form) + "},\"partial\":false}";
+            } else if ("upload".equals(action)) {
+                String uploadId = exchange.getRequestHeaders().getFirst("X-Unique-Upload-Id");
+                String publicId = "library_books/" + (uploadId != null ? uploadId : UUID.randomUUID().toString());
+                String url = uploadPrefix() + "/" + cloudName + "/raw/" + publicId + ".pdf";
+                json = "{\"public_id\":\"" + publicId + "\",\"secure_url\":\"" + url + "\",\"url\":\"" + url
+                        + "\",\"format\":\"pdf\",\"resource_type\":\"raw\"}";
+            } else {
+                json = "{\"result\":\"ok\"}";
+            }
+
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String deletedIds(String form) {
+        StringJoiner ids = new StringJoiner(",");
+        for (String param : form.split("&")) {
+            String[] pair = param.split("=", 2);
+            if (pair.length == 2 && URLDecoder.decode(pair[0], StandardCharsets.UTF_8).equals("public_ids[]")) {
+                ids.add("\"" + URLDecoder.decode(pair[1], StandardCharsets.UTF_8) + "\":\"deleted\"");
+            }
+        }
+        return ids.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
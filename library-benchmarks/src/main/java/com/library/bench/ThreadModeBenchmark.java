@@ -0,0 +1,122 @@
+package com.library.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// ================= THREAD MODE =================
+// Platform vs virtual request threads (spring.threads.virtual.enabled) under a burst of concurrent
+// requests through the real HTTP stack. Each invocation fires `concurrency` requests at once and
+// waits for all of them. With platform threads Tomcat serves at most 200 at a time, so bursts larger
+// than that queue; capacity = concurrency / score.
+// Uploads block on the stub Cloudinary round trip (cloudinaryLatencyMs), which is where virtual
+// threads should help. Searches are mostly bounded by the Hikari pool and the CPU.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"100", "400"})
+    public int concurrency;
+
+    @Param({"200"})
+    public int cloudinaryLatencyMs;
+
+    private BenchFixture fixture;
+    private HttpClient http;
+    private String token;
+    private String searchUrl;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        fixture = BenchFixture.start(10_000,
+                // Per-account upload slots lifted so the burst measures the thread model, not slot queueing
+                Map.of("spring.threads.virtual.enabled", String.valueOf(virtualThreads),
+                        "cloudinary.router.max-concurrent-per-account", "1000"),
+                Duration.ofMillis(cloudinaryLatencyMs));
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        ObjectMapper json = new ObjectMapper();
+        String credentials = json.writeValueAsString(Map.of("username", "bench", "email", "bench@bench.local", "password", "bench-password"));
+        send(post("/api/auth/register", credentials));
+        HttpResponse<String> login = send(post("/api/auth/login", credentials));
+        token = json.readTree(login.body()).path("token").asText();
+
+        searchUrl = fixture.baseUrl() + "/api/books/search?size=20&q=" + fixture.word(5);
+        payload = new byte[64 * 1024];
+        new Random(BenchFixture.SEED).nextBytes(payload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public int concurrentSearch() {
+        return burst(() -> HttpRequest.newBuilder(URI.create(searchUrl))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build());
+    }
+
+    @Benchmark
+    public int concurrentUpload() {
+        return burst(() -> {
+            String boundary = "----bench" + System.nanoTime();
+            return HttpRequest.newBuilder(URI.create(fixture.baseUrl() + "/api/books"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(
+                            LoadGenerator.multipart(boundary, "Thread mode bench", "Concurrent upload", payload)))
+                    .build();
+        });
+    }
+
+    // Returns the number of 200 responses so failures (e.g. pool timeouts) show up in the results
+    private int burst(Supplier<HttpRequest> request) {
+        List<CompletableFuture<HttpResponse<Void>>> inFlight = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            inFlight.add(http.sendAsync(request.get(), HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> f : inFlight) {
+            if (f.join().statusCode() == 200) ok++;
+        }
+        return ok;
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(fixture.baseUrl() + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.bench;
+
+import com.library.service.CloudinaryManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// ================= UPLOAD =================
+// CloudinaryManager.uploadFile(File) against the local stub: routing, multipart encoding, the
+// HTTP round trip and metrics, without network variance. Sizes cover the single-request path and,
+// above cloudinary.large-upload-threshold-bytes (20 MB by default), the chunked path.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UploadBenchmark {
+
+    @Param({"65536", "1048576", "26214400"})
+    public int fileBytes;
+
+    private BenchFixture fixture;
+    private CloudinaryManager cloudinaryManager;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        fixture = BenchFixture.start(0);
+        cloudinaryManager = fixture.bean(CloudinaryManager.class);
+
+        file = Files.createTempFile("library-bench-", ".pdf");
+        byte[] block = new byte[64 * 1024];
+        new Random(BenchFixture.SEED).nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int written = 0; written < fileBytes; written += block.length) {
+                out.write(block, 0, Math.min(block.length, fileBytes - written));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fixture.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public CloudinaryManager.UploadResult uploadFile() throws IOException {
+        File source = file.toFile();
+        return cloudinaryManager.uploadFile(source);
+    }
+}
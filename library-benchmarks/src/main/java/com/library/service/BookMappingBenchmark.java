@@ -0,0 +1,61 @@
+package com.library.service;
+
+import com.library.bench.BenchFixture;
+import com.library.dto.LibraryDtos;
+import com.library.model.Book;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.AopProxyUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// ================= DTO MAPPING =================
+// BookService.mapToResponse on a detached entity: DTO building plus the five preview URLs signed by
+// the Cloudinary client. Lives in com.library.service because mapToResponse is package-private.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookMappingBenchmark {
+    private BenchFixture fixture;
+    private BookService bookService;
+    private Book book;
+
+    @Setup
+    public void setup() throws Exception {
+        fixture = BenchFixture.start(0);
+        // Call the target directly: the transactional proxy is not part of what is measured
+        BookService bean = fixture.bean(BookService.class);
+        Object target = AopProxyUtils.getSingletonTarget(bean);
+        bookService = target instanceof BookService service ? service : bean;
+
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        book = Book.builder()
+                .id(42L)
+                .name("Distributed Systems: Principles and Paradigms")
+                .description("A benchmark fixture describing a reasonably long book description for mapping.")
+                .ownerId(7L)
+                .publicId("library_books/bench-42")
+                .accountIndex(2)
+                .size(12_345_678L)
+                .format("pdf")
+                .viewUrl("https://res.cloudinary.com/bench2/raw/upload/library_books/bench-42.pdf")
+                .downloadUrl("https://res.cloudinary.com/bench2/raw/upload/fl_attachment/library_books/bench-42.pdf")
+                .createdAt(created)
+                .updatedAt(created)
+                .downloads(314)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public LibraryDtos.BookResponse mapToResponse() {
+        return bookService.mapToResponse(book);
+    }
+}
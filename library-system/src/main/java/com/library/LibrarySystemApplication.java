@@ -2,8 +2,12 @@ package com.library;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableJpaAuditing // populates @CreatedDate/@LastModifiedDate (Book.updatedAt drives ETag/Last-Modified)
 public class LibrarySystemApplication {
     public static void main(String[] args) {
         SpringApplication.run(LibrarySystemApplication.class, args);
@@ -1,11 +1,14 @@
 package com.library.config;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -13,19 +16,25 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+
+    // true: trust the signed userId/role claims and only consult the status cache.
+    // false: load the user from the DB on every request (legacy behaviour).
+    @Value("${jwt.claims-only:true}")
+    private boolean claimsOnly;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -34,13 +43,20 @@ class JwtAuthFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            username = jwtUtils.extractUsername(jwt);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                if (jwtUtils.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Signature and expiry are verified here; a bad token throws
+                Claims claims = jwtUtils.extractAllClaims(jwt);
+                String username = claims.getSubject();
+                Long userId = jwtUtils.extractUserId(claims);
+                String role = claims.get("role", String.class);
+
+                if (username != null && userId != null && role != null) {
+                    UsernamePasswordAuthenticationToken authToken = claimsOnly
+                            ? authenticateFromClaims(userId, username, role)
+                            : authenticateFromUserDetails(jwt, userId, username, role);
+                    if (authToken != null) {
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                    }
                 }
             }
         } catch (Exception e) {
@@ -49,4 +65,17 @@ class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UsernamePasswordAuthenticationToken authenticateFromClaims(Long userId, String username, String role) {
+        if (!userStatusCache.isActive(userId)) return null;
+        return new UsernamePasswordAuthenticationToken(new JwtPrincipal(userId, username, role), null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+    }
+
+    private UsernamePasswordAuthenticationToken authenticateFromUserDetails(String jwt, Long userId, String username, String role) {
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (!userDetails.isEnabled() || !jwtUtils.isTokenValid(jwt, userDetails)) return null;
+        return new UsernamePasswordAuthenticationToken(new JwtPrincipal(userId, username, role), null,
+                userDetails.getAuthorities());
+    }
 }
@@ -0,0 +1,11 @@
+package com.library.config;
+
+import java.security.Principal;
+
+// Authenticated caller rebuilt from the signed JWT claims (no users SELECT needed)
+public record JwtPrincipal(Long userId, String username, String role) implements Principal {
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,166 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.dto.LibraryDtos.ApiResponse;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ================= RATE LIMIT FILTER =================
+// Per-route token buckets, checked before JwtAuthFilter. Anonymous routes (login, register,
+// forgot-password, reset-password) are keyed by client IP; upload routes by the userId of a
+// valid bearer token, falling back to the IP. The client IP is the one Tomcat's RemoteIpValve
+// resolved from X-Forwarded-For (server.forward-headers-strategy=native), not the proxy's.
+// Each bucket is a single AtomicLong holding the GCRA "theoretical arrival time", so a check is
+// one cache lookup plus one CAS, without locks. Buckets live in a size-bounded Caffeine cache
+// and are evicted once idle; an evicted bucket would be full again by then anyway as long as
+// rate-limit.idle-ms is longer than burst * (60s / per-minute).
+@Component
+class RateLimitFilter extends OncePerRequestFilter {
+
+    // Every path of a route shares its buckets
+    private record Route(String name, String method, Set<String> paths, boolean perUser, long intervalNanos, long toleranceNanos, Counter rejected) {
+        boolean matches(String requestMethod, String requestPath) {
+            return method.equals(requestMethod) && paths.contains(requestPath);
+        }
+    }
+
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final List<Route> routes;
+    private final Cache<String, AtomicLong> buckets;
+
+    RateLimitFilter(JwtUtils jwtUtils, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                    @Value("${rate-limit.enabled:true}") boolean enabled,
+                    @Value("${rate-limit.max-keys:100000}") long maxKeys,
+                    @Value("${rate-limit.idle-ms:600000}") long idleMs,
+                    @Value("${rate-limit.login.per-minute:10}") int loginPerMinute,
+                    @Value("${rate-limit.login.burst:5}") int loginBurst,
+                    @Value("${rate-limit.register.per-minute:5}") int registerPerMinute,
+                    @Value("${rate-limit.register.burst:3}") int registerBurst,
+                    @Value("${rate-limit.forgot-password.per-minute:3}") int forgotPerMinute,
+                    @Value("${rate-limit.forgot-password.burst:3}") int forgotBurst,
+                    @Value("${rate-limit.reset-password.per-minute:5}") int resetPerMinute,
+                    @Value("${rate-limit.reset-password.burst:5}") int resetBurst,
+                    @Value("${rate-limit.upload.per-minute:20}") int uploadPerMinute,
+                    @Value("${rate-limit.upload.burst:5}") int uploadBurst,
+                    @Value("${rate-limit.bulk-upload.per-minute:2}") int bulkPerMinute,
+                    @Value("${rate-limit.bulk-upload.burst:2}") int bulkBurst) {
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.routes = List.of(
+                route(meterRegistry, "login", "POST", "/api/auth/login", false, loginPerMinute, loginBurst),
+                route(meterRegistry, "register", "POST", "/api/auth/register", false, registerPerMinute, registerBurst),
+                route(meterRegistry, "forgot-password", "POST", "/api/auth/forgot-password", false, forgotPerMinute, forgotBurst),
+                route(meterRegistry, "reset-password", "POST", "/api/auth/reset-password", false, resetPerMinute, resetBurst),
+                route(meterRegistry, "upload", "POST", Set.of("/api/books", "/api/books/uploads"), true, uploadPerMinute, uploadBurst),
+                route(meterRegistry, "bulk-upload", "POST", "/api/books/bulk", true, bulkPerMinute, bulkBurst));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMillis(idleMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rate-limit.buckets");
+    }
+
+    private static Route route(MeterRegistry meterRegistry, String name, String method, String path, boolean perUser,
+                               int perMinute, int burst) {
+        return route(meterRegistry, name, method, Set.of(path), perUser, perMinute, burst);
+    }
+
+    private static Route route(MeterRegistry meterRegistry, String name, String method, Set<String> paths, boolean perUser,
+                               int perMinute, int burst) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+        return new Route(name, method, paths, perUser, interval, interval * Math.max(1, burst),
+                meterRegistry.counter("http.rate_limited", "route", name));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Route route = match(request);
+        if (route != null) {
+            long retryAfterNanos = acquire(route.name() + '|' + clientKey(route, request), route);
+            if (retryAfterNanos > 0) {
+                route.rejected().increment();
+                reject(response, retryAfterNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Route match(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.matches(method, path)) return route;
+        }
+        return null;
+    }
+
+    private String clientKey(Route route, HttpServletRequest request) {
+        if (route.perUser()) {
+            String authHeader = request.getHeader("Authorization");
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                try {
+                    // Served from the verified-token cache that JwtAuthFilter hits right after
+                    Claims claims = jwtUtils.extractAllClaims(authHeader.substring(7));
+                    Long userId = jwtUtils.extractUserId(claims);
+                    if (userId != null) return "user:" + userId;
+                } catch (Exception e) {
+                    // Invalid token: limit by IP, the request is rejected as unauthenticated later
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // GCRA: allow while the theoretical arrival time stays within the burst tolerance of now.
+    // Returns 0 when the request may pass, otherwise the nanoseconds until it would.
+    private long acquire(String key, Route route) {
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long current = tat.get();
+            long next = Math.max(current, now) + route.intervalNanos();
+            long allowAt = next - route.toleranceNanos();
+            if (allowAt > now) return allowAt - now;
+            if (tat.compareAndSet(current, next)) return 0;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterNanos) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiResponse(false, "Too many requests, please retry later", null));
+    }
+}
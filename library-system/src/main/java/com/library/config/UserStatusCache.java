@@ -0,0 +1,36 @@
+package com.library.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Active/deactivated status per userId, so claims-only auth can enforce deactivations
+// without hitting the DB on every request. Entries expire after the TTL, which bounds
+// how long another node can keep accepting tokens of a user deactivated elsewhere.
+@Component
+public class UserStatusCache {
+    private final UserRepository userRepository;
+    private final Cache<Long, Boolean> activeByUserId;
+
+    public UserStatusCache(UserRepository userRepository,
+                           @Value("${auth.user-status.ttl-ms:60000}") long ttlMs,
+                           @Value("${auth.user-status.max-entries:10000}") long maxEntries) {
+        this.userRepository = userRepository;
+        this.activeByUserId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public boolean isActive(Long userId) {
+        return activeByUserId.get(userId, id -> userRepository.findActiveById(id).orElse(false));
+    }
+
+    public void markInactive(Long userId) {
+        activeByUserId.put(userId, false);
+    }
+}
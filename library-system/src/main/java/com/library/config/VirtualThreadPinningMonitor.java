@@ -0,0 +1,106 @@
+package com.library.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// ================= VIRTUAL THREAD PINNING MONITOR =================
+// With spring.threads.virtual.enabled=true a virtual thread that blocks inside a synchronized block
+// (or a native frame) pins its carrier thread, and enough pinned carriers stall every request.
+// The JDK reports this as the JFR event jdk.VirtualThreadPinned; it is streamed in-process and
+// published as the timer jvm.threads.virtual.pinned, tagged by the library that caused it.
+// Each distinct pinning site is logged once with its top frames.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+    private static final int LOGGED_FRAMES = 8;
+
+    // Package prefix -> tag; first match walking down the stack wins
+    private static final List<String[]> SOURCES = List.of(
+            new String[]{"com.mysql.", "jdbc"},
+            new String[]{"org.h2.", "jdbc"},
+            new String[]{"com.zaxxer.hikari.", "jdbc-pool"},
+            new String[]{"org.apache.http.", "http-client"},
+            new String[]{"com.cloudinary.", "cloudinary"},
+            new String[]{"org.hibernate.", "hibernate"},
+            new String[]{"com.library.", "app"});
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${app.virtual-threads.pinning-threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            stream = new RecordingStream();
+            stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+            stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+            stream.startAsync();
+            System.out.println("Virtual thread pinning monitor active (threshold " + threshold.toMillis() + "ms)");
+        } catch (Exception e) {
+            // JFR can be disabled in the runtime image; the app must still start
+            System.err.println("Virtual thread pinning monitor unavailable: " + e.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+        String source = "other";
+        String site = "unknown";
+        outer:
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod() == null) continue;
+            String type = frame.getMethod().getType().getName();
+            for (String[] candidate : SOURCES) {
+                if (type.startsWith(candidate[0])) {
+                    source = candidate[1];
+                    site = type + "." + frame.getMethod().getName();
+                    break outer;
+                }
+            }
+        }
+
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads blocked while pinned to their carrier")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(event.getDuration().toNanos(), TimeUnit.NANOSECONDS);
+
+        if (loggedSites.add(site)) {
+            StringBuilder trace = new StringBuilder();
+            for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+                RecordedFrame frame = frames.get(i);
+                if (frame.getMethod() == null) continue;
+                trace.append("\n    at ").append(frame.getMethod().getType().getName())
+                        .append('.').append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+            }
+            System.err.println("Virtual thread pinned for " + event.getDuration().toMillis() + "ms (" + source + ") in " + site + trace);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) stream.close();
+    }
+}
@@ -3,7 +3,7 @@ package com.library.controller;
 import com.library.dto.LibraryDtos.*;
  // Assuming proper package scan or imports
 import com.library.service.*; // Import specific services
-import com.library.config.JwtUtils;
+import com.library.config.JwtPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,9 +11,17 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 // Wrapper for all controllers to keep structure concise
 class LibraryController {
@@ -40,6 +48,11 @@ class LibraryController {
             authService.forgotPassword(email);
             return ResponseEntity.ok(new ApiResponse(true, "OTP sent", null));
         }
+
+        @PostMapping("/reset-password")
+        public ResponseEntity<ApiResponse> resetPassword(@RequestBody ResetPasswordRequest req) {
+            return ResponseEntity.ok(authService.resetPassword(req));
+        }
     }
 
     @RestController
@@ -47,6 +60,7 @@ class LibraryController {
     @RequiredArgsConstructor
     public static class BookController {
         private final BookService bookService;
+        private final UploadJobService uploadJobService;
 
         @PostMapping
         public ResponseEntity<BookResponse> upload(
@@ -61,22 +75,93 @@ class LibraryController {
             return ResponseEntity.ok(bookService.uploadBook(req, file, userId));
         }
 
+        // Async variant: the file is spooled locally and uploaded in the background
+        @PostMapping("/uploads")
+        public ResponseEntity<UploadJobResponse> uploadAsync(
+                @RequestParam("name") String name,
+                @RequestParam("description") String desc,
+                @RequestParam("file") MultipartFile file) throws IOException {
+
+            BookUploadRequest req = new BookUploadRequest();
+            req.setName(name);
+            req.setDescription(desc);
+            UploadJobResponse job = uploadJobService.submit(req, file, getCurrentUserId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/books/uploads/" + job.getJobId()))
+                    .body(job);
+        }
+
+        // Many files in one multipart request; names/descriptions are optional and matched by position
+        // (a missing name defaults to the file name without extension)
+        @PostMapping("/bulk")
+        public ResponseEntity<BulkUploadResponse> uploadBulk(
+                @RequestParam("files") List<MultipartFile> files,
+                @RequestParam(value = "names", required = false) List<String> names,
+                @RequestParam(value = "descriptions", required = false) List<String> descs) {
+
+            List<BookUploadRequest> metadata = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                BookUploadRequest req = new BookUploadRequest();
+                req.setName(names != null && i < names.size() ? names.get(i) : baseName(files.get(i).getOriginalFilename()));
+                req.setDescription(descs != null && i < descs.size() ? descs.get(i) : "");
+                metadata.add(req);
+            }
+            return ResponseEntity.ok(bookService.bulkUpload(metadata, files, getCurrentUserId()));
+        }
+
+        private static String baseName(String fileName) {
+            if (fileName == null || fileName.isBlank()) return "Untitled";
+            int dot = fileName.lastIndexOf('.');
+            return dot > 0 ? fileName.substring(0, dot) : fileName;
+        }
+
+        @GetMapping("/uploads/{jobId}")
+        public ResponseEntity<UploadJobResponse> uploadStatus(@PathVariable String jobId) {
+            return ResponseEntity.ok(uploadJobService.getJob(jobId, getCurrentUserId(), isAdmin()));
+        }
+
+        // getBook is served from the book cache, so a 304 costs neither a DB round trip nor serialization
         @GetMapping("/{id}")
-        public ResponseEntity<BookResponse> getBook(@PathVariable Long id) {
-            return ResponseEntity.ok(bookService.getBook(id));
+        public ResponseEntity<BookResponse> getBook(@PathVariable Long id, WebRequest webRequest) {
+            BookResponse book = bookService.getBook(id);
+            if (webRequest.checkNotModified(etag(book), lastModified(book))) return null;
+            return ResponseEntity.ok(book);
         }
 
         @GetMapping("/{id}/download")
         public ResponseEntity<Void> downloadTrack(@PathVariable Long id) {
-            bookService.incrementDownload(id);
+            bookService.incrementDownload(id, getCurrentUserId());
             return ResponseEntity.ok().build();
         }
 
         @GetMapping("/search")
-        public ResponseEntity<Page<BookResponse>> search(@RequestParam(required=false) String q, Pageable pageable) {
+        public ResponseEntity<Page<BookResponse>> search(@RequestParam(required=false) String q, Pageable pageable, WebRequest webRequest) {
+            String etag = catalogEtag("page", q, pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+            if (webRequest.checkNotModified(etag)) return null;
             return ResponseEntity.ok(bookService.searchBooks(q, pageable));
         }
 
+        // Cursor mode of /search, selected by the presence of ?cursor= (empty for the first page)
+        @GetMapping(value = "/search", params = "cursor")
+        public ResponseEntity<CursorPage<BookResponse>> searchByCursor(
+                @RequestParam(required = false) String q,
+                @RequestParam(required = false) String cursor,
+                @RequestParam(defaultValue = "20") int size,
+                @RequestParam(defaultValue = "false") boolean count,
+                WebRequest webRequest) {
+            if (webRequest.checkNotModified(catalogEtag("cursor", q, cursor, size, count))) return null;
+            return ResponseEntity.ok(bookService.scrollBooks(q, cursor, size, count));
+        }
+
+        // Listing and search validator: the catalog change stamp plus the request, so a 304 is decided
+        // before the index or the DB is touched. No Last-Modified here: a delete, a download or a new
+        // book on another page changes the response without raising any listed book's updatedAt.
+        private String catalogEtag(Object... request) {
+            StringBuilder state = new StringBuilder(bookService.catalogVersion());
+            for (Object part : request) state.append(';').append(part);
+            return "W/\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        }
+
         @DeleteMapping("/{id}")
         public ResponseEntity<ApiResponse> delete(@PathVariable Long id) {
             bookService.deleteBook(id, getCurrentUserId(), isAdmin());
@@ -98,16 +183,23 @@ class LibraryController {
         }
     }
 
+    // Weak validator over what the client sees of one book: id, last update and download count
+    private static String etag(BookResponse b) {
+        String state = b.getId() + ":" + lastModified(b) + ":" + b.getDownloads();
+        return "W/\"" + DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static long lastModified(BookResponse b) {
+        // Rows written before auditing was enabled have no updatedAt
+        LocalDateTime changed = b.getUpdatedAt() != null ? b.getUpdatedAt() : b.getCreatedAt();
+        return changed == null ? -1 : changed.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     // Helper methods to get current Auth info
     private static Long getCurrentUserId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        @SuppressWarnings("unchecked")
-        java.util.Map<String, Object> details = (java.util.Map<String, Object>) auth.getDetails();
-        // In a real JWT setup, extract ID from claims. Using mock logic here for compilation:
-        // Actually, JwtUtils puts userId in claims. We need to access it.
-        // For simplicity in this structure, we assume the Principal or Details has it.
-        // A cleaner way in production is a custom @CurrentUser annotation.
-        return 1L; // Placeholder: Replace with `(Long) ((Claims) auth.getPrincipal()).get("userId")` logic
+        // JwtAuthFilter always installs a JwtPrincipal built from the token's userId claim
+        return ((JwtPrincipal) auth.getPrincipal()).userId();
     }
 
     private static boolean isAdmin() {
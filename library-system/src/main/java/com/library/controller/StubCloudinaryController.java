@@ -0,0 +1,88 @@
+package com.library.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Minimal stand-in for the Cloudinary upload API so failover and account selection can be
+// exercised offline. Point the clients at it with cloudinary.upload-prefix=http://localhost:<port>/stub-cloudinary.
+// Also active in the loadtest profile, which points the clients here by default.
+// The cloud name drives the behaviour: "...fail..." -> 500, "...full..." -> quota error, "...slow..." -> delayed reply,
+// "...flaky..." -> 500 for its first stub.cloudinary.flaky-failures uploads, then success (circuit recovery).
+@RestController
+@RequestMapping("/stub-cloudinary/v1_1/{cloudName}")
+@Profile({"stub-cloudinary", "loadtest"})
+class StubCloudinaryController {
+
+    @Value("${stub.cloudinary.slow-ms:2000}")
+    private long slowMs;
+
+    @Value("${stub.cloudinary.flaky-failures:2}")
+    private int flakyFailures;
+
+    // Uploads seen per flaky cloud name
+    private final Map<String, AtomicInteger> flakyUploads = new ConcurrentHashMap<>();
+
+    @PostMapping("/{resourceType}/upload")
+    public ResponseEntity<Map<String, Object>> upload(@PathVariable String cloudName,
+                                                      @PathVariable String resourceType,
+                                                      @RequestParam(value = "file", required = false) MultipartFile file,
+                                                      HttpServletRequest request) throws InterruptedException {
+        if (cloudName.contains("fail") || cloudName.contains("flaky")
+                && flakyUploads.computeIfAbsent(cloudName, k -> new AtomicInteger()).incrementAndGet() <= flakyFailures) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", Map.of("message", "Stub failure on " + cloudName)));
+        }
+        if (cloudName.contains("full")) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", Map.of("message", "Storage quota exceeded on " + cloudName)));
+        }
+        if (cloudName.contains("slow")) Thread.sleep(slowMs);
+
+        // Chunks of one chunked upload share X-Unique-Upload-Id, so they resolve to one public id
+        String uploadId = request.getHeader("X-Unique-Upload-Id");
+        String publicId = "library_books/" + (uploadId != null ? uploadId : UUID.randomUUID().toString());
+        String url = "http://localhost/stub-cloudinary/" + cloudName + "/" + resourceType + "/" + publicId + ".pdf";
+        return ResponseEntity.ok(Map.of(
+                "public_id", publicId,
+                "secure_url", url,
+                "url", url,
+                "format", "pdf",
+                "resource_type", "image".equals(resourceType) || "auto".equals(resourceType) ? "image" : resourceType,
+                "bytes", file == null ? 0 : file.getSize()));
+    }
+
+    @PostMapping("/{resourceType}/destroy")
+    public ResponseEntity<Map<String, Object>> destroy(@PathVariable String cloudName, @PathVariable String resourceType) {
+        if (cloudName.contains("fail")) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", Map.of("message", "Stub failure on " + cloudName)));
+        }
+        return ResponseEntity.ok(Map.of("result", "ok"));
+    }
+
+    // Admin API bulk delete (api().deleteResources), answered like Cloudinary: one status per id.
+    // The Java client sends it as a form POST with _method=delete.
+    @RequestMapping(path = "/resources/{resourceType}/{type}", method = {RequestMethod.DELETE, RequestMethod.POST})
+    public ResponseEntity<Map<String, Object>> deleteResources(@PathVariable String cloudName,
+                                                               @RequestParam(value = "public_ids[]", required = false) List<String> publicIds) {
+        if (cloudName.contains("fail")) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", Map.of("message", "Stub failure on " + cloudName)));
+        }
+        Map<String, String> deleted = new LinkedHashMap<>();
+        if (publicIds != null) publicIds.forEach(id -> deleted.put(id, "deleted"));
+        return ResponseEntity.ok(Map.of("deleted", deleted, "partial", false));
+    }
+}
@@ -25,6 +25,13 @@ public class LibraryDtos {
         private String password;
     }
 
+    @Data
+    public static class ResetPasswordRequest {
+        private String email;
+        private String otp; // From POST /api/auth/forgot-password
+        private String newPassword;
+    }
+
     @Data
     @Builder
     public static class LoginResponse {
@@ -48,7 +55,7 @@ public class LibraryDtos {
     }
 
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class BookResponse {
         private Long id;
         private String name;
@@ -59,9 +66,53 @@ public class LibraryDtos {
         private List<String> previews;
         private int downloads;
         private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
         private long sizeBytes;
     }
 
+    // Keyset page: pass nextCursor back as ?cursor= to continue; absent on the last page
+    @Data
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CursorPage<T> {
+        private List<T> items;
+        private String nextCursor;
+        private Long total; // Only when requested with count=true
+        private Boolean totalEstimated; // true when a broad prefix made total an extrapolation
+    }
+
+    @Data
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class UploadJobResponse {
+        private String jobId;
+        private String status; // QUEUED, UPLOADING, DONE, FAILED
+        private int progress; // 0-100
+        private String error;
+        private BookResponse book; // Set once the job is DONE
+        private LocalDateTime createdAt;
+    }
+
+    // Result of POST /api/books/bulk; items are in the order the files were sent
+    @Data
+    @Builder
+    public static class BulkUploadResponse {
+        private int uploaded;
+        private int failed;
+        private List<BulkUploadItem> items;
+    }
+
+    @Data
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class BulkUploadItem {
+        private int index;
+        private String fileName;
+        private boolean success;
+        private BookResponse book; // Set when success
+        private String error; // Set when not
+    }
+
     @Data
     @Builder
     public static class UserResponse {
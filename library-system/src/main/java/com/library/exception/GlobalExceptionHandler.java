@@ -1,6 +1,7 @@
 package com.library.exception;
 
 import com.library.dto.LibraryDtos.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -19,11 +20,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(new ApiResponse(false, ex.getMessage(), null), HttpStatus.UNAUTHORIZED);
     }
 
+    @ExceptionHandler(ForbiddenException.class)
+    public ResponseEntity<ApiResponse> handleForbidden(ForbiddenException ex) {
+        return new ResponseEntity<>(new ApiResponse(false, ex.getMessage(), null), HttpStatus.FORBIDDEN);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ApiResponse> handleBadRequest(BadRequestException ex) {
         return new ResponseEntity<>(new ApiResponse(false, ex.getMessage(), null), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse> handleUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponse(false, ex.getMessage(), null));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ApiResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ApiResponse(false, ex.getMessage(), null));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse> handleGlobal(Exception ex) {
         return new ResponseEntity<>(new ApiResponse(false, "Internal Server Error: " + ex.getMessage(), null), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -34,4 +54,14 @@ public class GlobalExceptionHandler {
     public static class UnauthorizedException extends RuntimeException { public UnauthorizedException(String msg) { super(msg); } }
     public static class BadRequestException extends RuntimeException { public BadRequestException(String msg) { super(msg); } }
     public static class ForbiddenException extends RuntimeException { public ForbiddenException(String msg) { super(msg); } }
+    public static class ServiceUnavailableException extends RuntimeException {
+        private final long retryAfterSeconds;
+        public ServiceUnavailableException(String msg, long retryAfterSeconds) { super(msg); this.retryAfterSeconds = retryAfterSeconds; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+    public static class TooManyRequestsException extends RuntimeException {
+        private final long retryAfterSeconds;
+        public TooManyRequestsException(String msg, long retryAfterSeconds) { super(msg); this.retryAfterSeconds = retryAfterSeconds; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
 }
\ No newline at end of file
@@ -5,12 +5,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
 @Builder
@@ -18,10 +18,14 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "books")
+@DynamicUpdate // entity saves must not overwrite downloads incremented by DownloadCounter
 @EntityListeners(AuditingEntityListener.class)
 public class Book {
+    // Pooled sequence (a books_seq table on MySQL): ids are reserved 50 at a time, so inserts
+    // can be JDBC-batched, which IDENTITY rules out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_ids")
+    @SequenceGenerator(name = "book_ids", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -33,16 +37,15 @@ public class Book {
 
     private String publicId; // Cloudinary ID
     private int accountIndex; // Which Cloudinary account (0-4)
+    @Builder.Default
+    private String resourceType = "image"; // Cloudinary resource type: image, raw or video
     private long size; // Bytes
     private String format; // pdf
     private String viewUrl;
     private String downloadUrl;
-
-    @ElementCollection
-    @CollectionTable(name = "book_pages_preview", joinColumns = @JoinColumn(name = "book_id"))
-    @OrderColumn(name = "page_index") // FIX: This creates a Primary Key (book_id + page_index)
-    @Column(name = "image_url", length = 1000)
-    private List<String> pagesPreview;
+    @Column(unique = true, length = 36)
+    private String uploadJobId; // Async upload job that created it, null for direct uploads
+    // Page previews are not stored: BookService derives their URLs from publicId/accountIndex
 
     @CreatedDate
     private LocalDateTime createdAt;
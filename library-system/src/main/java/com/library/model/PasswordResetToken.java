@@ -23,4 +23,5 @@ public class PasswordResetToken {
     private String email;
     private String otp;
     private LocalDateTime expiresAt;
+    private int attempts; // wrong guesses so far, see OtpStore.verify
 }
@@ -0,0 +1,44 @@
+package com.library.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A Cloudinary file whose book was deleted and which RemoteDeleteReaper still has to remove
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class PendingRemoteDelete {
+    // Pooled sequence like Book/User: the rows of a bulk discard go out in one JDBC batch
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pending_remote_delete_ids")
+    @SequenceGenerator(name = "pending_remote_delete_ids", sequenceName = "pending_remote_delete_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private String publicId;
+
+    private int accountIndex;
+
+    @Column(nullable = false)
+    private String resourceType;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+    private String lastError;
+}
@@ -4,17 +4,82 @@ import com.library.model.Book; // FIX: Import the correct Entity, NOT java.awt.p
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Page<Book> findByOwnerIdAndDeletedFalse(Long ownerId, Pageable pageable);
 
-    Page<Book> findByDeletedFalse(Pageable pageable);
+    // Listing and search paths return BookSummary rows: one SELECT of plain columns per page,
+    // no entity hydration (previews are derived from publicId)
+    Page<BookSummary> findByDeletedFalse(Pageable pageable);
 
-    Page<Book> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(String name, String desc, Pageable pageable);
+    long countByDeletedFalse();
+
+    // Keyset (seek) pages over (createdAt, id), newest first; the Pageable only carries the limit
+    @Query("select " + SUMMARY_COLUMNS + " from Book b where b.deleted = false order by b.createdAt desc, b.id desc")
+    List<BookSummary> findLatest(Pageable limit);
+
+    @Query("select " + SUMMARY_COLUMNS + " from Book b where b.deleted = false and (b.createdAt < :createdAt or (b.createdAt = :createdAt and b.id < :id)) order by b.createdAt desc, b.id desc")
+    List<BookSummary> findLatestBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limit);
+
+    @Query("select " + SUMMARY_COLUMNS + " from Book b where b.deleted = false and b.id in :ids")
+    List<BookSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // SQL fallback used only until the in-memory search index has been built
+    @Query(value = "select " + SUMMARY_COLUMNS + " from Book b where b.deleted = false and (" + SEARCH_MATCH + ")",
+            countQuery = "select count(b) from Book b where b.deleted = false and (" + SEARCH_MATCH + ")")
+    Page<BookSummary> searchActive(@Param("q") String query, Pageable pageable);
+
+    // Keyset-paged scan feeding the search index rebuild
+    @Query("select b.id as id, b.name as name, b.description as description from Book b where b.deleted = false and b.id > :afterId order by b.id")
+    List<SearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable limit);
 
     List<Book> findByOwnerId(Long ownerId);
+
+    // Book already saved by an upload job, deleted or not (the unique index serves it)
+    @Query("select b.id from Book b where b.uploadJobId = :jobId")
+    Optional<Long> findIdByUploadJobId(@Param("jobId") String jobId);
+
+    // Bytes stored per Cloudinary account (soft-deleted books are removed remotely)
+    @Query("select b.accountIndex as accountIndex, sum(b.size) as usedBytes from Book b where b.deleted = false group by b.accountIndex")
+    List<AccountUsage> sumSizeByAccountIndex();
+
+    String SUMMARY_COLUMNS = "b.id as id, b.name as name, b.description as description, b.ownerId as ownerId, "
+            + "b.publicId as publicId, b.accountIndex as accountIndex, b.viewUrl as viewUrl, b.downloadUrl as downloadUrl, "
+            + "b.downloads as downloads, b.size as size, b.createdAt as createdAt, b.updatedAt as updatedAt";
+    String SEARCH_MATCH = "lower(b.name) like lower(concat('%', :q, '%')) or lower(b.description) like lower(concat('%', :q, '%'))";
+
+    interface BookSummary {
+        Long getId();
+        String getName();
+        String getDescription();
+        Long getOwnerId();
+        String getPublicId();
+        int getAccountIndex();
+        String getViewUrl();
+        String getDownloadUrl();
+        int getDownloads();
+        long getSize();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
+    interface SearchDocument {
+        Long getId();
+        String getName();
+        String getDescription();
+    }
+
+    interface AccountUsage {
+        int getAccountIndex();
+        Long getUsedBytes();
+    }
 }
\ No newline at end of file
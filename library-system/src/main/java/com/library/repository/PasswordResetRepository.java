@@ -2,11 +2,44 @@ package com.library.repository;
 
 import com.library.model.PasswordResetToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
  public interface PasswordResetRepository extends JpaRepository<PasswordResetToken, Long> {
-    Optional<PasswordResetToken> findByEmailAndOtp(String email, String otp);
+    // OtpStore keeps one token per email; looked up by email only, so every guess is counted
+    Optional<PasswordResetToken> findFirstByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.email = :email")
+    int deleteByEmail(@Param("email") String email);
+
+    // Consumes the token; 0 when another request consumed or discarded it first
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.email = :email AND t.otp = :otp")
+    int deleteByEmailAndOtp(@Param("email") String email, @Param("otp") String otp);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE PasswordResetToken t SET t.attempts = t.attempts + 1 WHERE t.email = :email")
+    int incrementAttempts(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.email = :email AND t.attempts >= :maxAttempts")
+    int deleteByEmailIfExhausted(@Param("email") String email, @Param("maxAttempts") int maxAttempts);
+
+    // Bulk delete for the OtpStore sweeper, served by idx_password_reset_token_expires_at
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.expiresAt < :cutoff")
+    int deleteByExpiresAtBefore(@Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,24 @@
+package com.library.repository;
+
+import com.library.model.PendingRemoteDelete;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PendingRemoteDeleteRepository extends JpaRepository<PendingRemoteDelete, Long> {
+    @Query("select p from PendingRemoteDelete p where p.nextAttemptAt <= :now order by p.nextAttemptAt")
+    List<PendingRemoteDelete> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update PendingRemoteDelete p set p.attempts = p.attempts + 1, p.nextAttemptAt = :next, p.lastError = :error where p.id in :ids")
+    int markFailed(@Param("ids") List<Long> ids, @Param("next") LocalDateTime next, @Param("error") String error);
+}
@@ -4,6 +4,9 @@ import com.library.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -19,4 +22,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Query("select u.active from User u where u.id = :id")
+    Optional<Boolean> findActiveById(@Param("id") Long id);
+
+    // Single UPDATE instead of load + save; concurrent uploads by one user cannot lose an increment
+    @Modifying
+    @Query("update User u set u.uploadsCount = u.uploadsCount + :count where u.id = :id")
+    int incrementUploadsCount(@Param("id") Long id, @Param("count") int count);
 }
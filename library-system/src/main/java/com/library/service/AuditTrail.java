@@ -0,0 +1,180 @@
+package com.library.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+// ================= AUDIT TRAIL =================
+// Request threads only append to a bounded lock-free buffer (a CAS on the size, then a
+// ConcurrentLinkedQueue offer); a scheduled writer drains it into audit_log and admin_action_log
+// with JDBC batch inserts. The JDBC path also sidesteps the IDENTITY ids on both entities, which
+// stop Hibernate from batching inserts. When the buffer is full the overflow policy decides:
+// DROP discards the event, BLOCK waits up to block-timeout-ms for space, SAMPLE keeps only every
+// n-th user event once the buffer passes the threshold. Admin actions are never sampled out.
+@Service
+public class AuditTrail {
+    public enum OverflowPolicy { DROP, BLOCK, SAMPLE }
+
+    private static final int MAX_TEXT = 255; // default VARCHAR length of the audit columns
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final long blockTimeoutNanos;
+    private final int sampleThreshold;
+    private final int sampleEvery;
+    private final int batchSize;
+
+    private final ConcurrentLinkedQueue<Entry> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Counter queued;
+    private final Counter dropped;
+    private final Counter sampledOut;
+    private final Counter written;
+    private final Timer flushTimer;
+
+    // For admin actions (admin_action_log) userId is the admin and targetUserId the affected user
+    private record Entry(Long userId, String action, String ip, String userAgent, Long targetUserId,
+                         boolean adminAction, LocalDateTime timestamp) {}
+
+    public AuditTrail(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                      @Value("${audit.buffer-capacity:10000}") int capacity,
+                      @Value("${audit.overflow-policy:DROP}") OverflowPolicy policy,
+                      @Value("${audit.block-timeout-ms:50}") long blockTimeoutMs,
+                      @Value("${audit.sample-threshold:0.8}") double sampleThreshold,
+                      @Value("${audit.sample-every:10}") int sampleEvery,
+                      @Value("${audit.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.sampleThreshold = (int) (capacity * sampleThreshold);
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.batchSize = batchSize;
+
+        Gauge.builder("audit.buffer.size", size, AtomicInteger::get).register(meterRegistry);
+        queued = meterRegistry.counter("audit.events", "outcome", "queued");
+        dropped = meterRegistry.counter("audit.events", "outcome", "dropped");
+        sampledOut = meterRegistry.counter("audit.events", "outcome", "sampled_out");
+        written = meterRegistry.counter("audit.events", "outcome", "written");
+        flushTimer = Timer.builder("audit.flush").description("Batch insert of buffered audit events").register(meterRegistry);
+    }
+
+    // Login, upload, download, delete...; ip and user agent are taken from the current request, if any
+    public void record(Long userId, String action) {
+        String ip = null;
+        String userAgent = null;
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            ip = request.getRemoteAddr();
+            userAgent = truncate(request.getHeader("User-Agent"));
+        }
+        enqueue(new Entry(userId, truncate(action), ip, userAgent, null, false, LocalDateTime.now()));
+    }
+
+    public void recordAdminAction(Long adminId, Long targetUserId, String action) {
+        enqueue(new Entry(adminId, truncate(action), null, null, targetUserId, true, LocalDateTime.now()));
+    }
+
+    private void enqueue(Entry entry) {
+        if (policy == OverflowPolicy.SAMPLE && !entry.adminAction() && size.get() >= sampleThreshold
+                && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            sampledOut.increment();
+            return;
+        }
+        if (!reserve()) {
+            dropped.increment();
+            return;
+        }
+        buffer.offer(entry);
+        queued.increment();
+    }
+
+    // Claims one slot of capacity; under BLOCK, parks briefly until the writer frees space
+    private boolean reserve() {
+        long deadline = policy == OverflowPolicy.BLOCK ? System.nanoTime() + blockTimeoutNanos : 0;
+        while (true) {
+            int current = size.get();
+            if (current < capacity) {
+                if (size.compareAndSet(current, current + 1)) return true;
+                continue;
+            }
+            if (policy != OverflowPolicy.BLOCK || System.nanoTime() >= deadline) return false;
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.flush-ms:1000}")
+    public void flush() {
+        while (!buffer.isEmpty()) {
+            List<Entry> events = new ArrayList<>();
+            List<Entry> adminActions = new ArrayList<>();
+            Entry entry;
+            while (events.size() + adminActions.size() < batchSize && (entry = buffer.poll()) != null) {
+                size.decrementAndGet();
+                (entry.adminAction() ? adminActions : events).add(entry);
+            }
+            if (events.isEmpty() && adminActions.isEmpty()) return;
+
+            boolean ok = write("INSERT INTO audit_log (user_id, action, ip, user_agent, timestamp) VALUES (?, ?, ?, ?, ?)",
+                    events, e -> new Object[]{e.userId(), e.action(), e.ip(), e.userAgent(), Timestamp.valueOf(e.timestamp())});
+            ok &= write("INSERT INTO admin_action_log (admin_id, target_user_id, action, timestamp) VALUES (?, ?, ?, ?)",
+                    adminActions, e -> new Object[]{e.userId(), e.targetUserId(), e.action(), Timestamp.valueOf(e.timestamp())});
+            if (!ok) return; // retry the re-queued entries next cycle
+        }
+    }
+
+    private boolean write(String sql, List<Entry> entries, Function<Entry, Object[]> row) {
+        if (entries.isEmpty()) return true;
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(sql, entries.stream().map(row).toList());
+            written.increment(entries.size());
+            return true;
+        } catch (Exception e) {
+            // Put the batch back while there is room
+            System.err.println("Audit flush failed for " + entries.size() + " events, retrying next cycle: " + e.getMessage());
+            for (Entry failed : entries) {
+                if (size.incrementAndGet() <= capacity) {
+                    buffer.offer(failed);
+                } else {
+                    size.decrementAndGet();
+                    dropped.increment();
+                }
+            }
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= MAX_TEXT ? value : value.substring(0, MAX_TEXT);
+    }
+}
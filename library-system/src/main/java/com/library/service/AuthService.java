@@ -14,7 +14,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
 
 // ================= AUTH SERVICE =================
 @Service
@@ -24,14 +23,19 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtils jwtUtils;
     private final AuthenticationManager authenticationManager;
-    private final PasswordResetRepository resetRepository;
+    private final OtpStore otpStore;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final AuditTrail auditTrail;
     
     @Value("${app.admin.secret-key}")
     private String adminSecretKey;
 
     public ApiResponse register(RegisterRequest req) {
         if (userRepository.existsByUsername(req.getUsername())) throw new BadRequestException("Username taken");
-        if (userRepository.existsByEmail(req.getEmail())) throw new BadRequestException("Email taken");
+        // Stored trimmed and lower-cased, the form password resets look it up by
+        String email = OtpStore.normalizeEmail(req.getEmail());
+        if (userRepository.existsByEmail(email)) throw new BadRequestException("Email taken");
 
         User.Role role = User.Role.USER;
         // Secret Key Admin Detection
@@ -41,8 +45,8 @@ public class AuthService {
 
         User user = User.builder()
                 .username(req.getUsername())
-                .email(req.getEmail())
-                .password(passwordEncoder.encode(req.getPassword()))
+                .email(email)
+                .password(hashingExecutor.execute(() -> passwordEncoder.encode(req.getPassword())))
                 .mobile(req.getMobile())
                 .role(role)
                 .active(true)
@@ -53,11 +57,14 @@ public class AuthService {
     }
 
     public LoginResponse login(LoginRequest req) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword()));
+        // BCrypt verification runs on the bounded hashing pool, not the request thread
+        hashingExecutor.execute(() -> authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())));
         User user = userRepository.findByUsername(req.getUsername()).orElseThrow();
         
-        user.setLastLogin(LocalDateTime.now());
-        userRepository.save(user);
+        // Written behind in batches, so the login response never waits on an UPDATE
+        lastLoginRecorder.record(user.getId(), LocalDateTime.now());
+        auditTrail.record(user.getId(), "LOGIN");
 
         String token = jwtUtils.generateToken(new org.springframework.security.core.userdetails.User(
                 user.getUsername(), user.getPassword(), List.of()), user.getId(), user.getRole().name());
@@ -70,15 +77,26 @@ public class AuthService {
     }
     
     public void forgotPassword(String email) {
-        // Mock sending email
-        String otp = String.valueOf(new Random().nextInt(900000) + 100000);
-        PasswordResetToken token = PasswordResetToken.builder()
-                .email(email)
-                .otp(otp)
-                .expiresAt(LocalDateTime.now().plusMinutes(15))
-                .build();
-        resetRepository.save(token);
+        // Mock sending email; OtpStore throttles repeated requests for the same address
+        String otp = otpStore.issue(email);
         System.out.println("OTP for " + email + ": " + otp); 
     }
+
+    public ApiResponse resetPassword(ResetPasswordRequest req) {
+        if (req.getNewPassword() == null || req.getNewPassword().isBlank())
+            throw new BadRequestException("New password required");
+        // One normalized address for the OTP key and the user lookup
+        String email = OtpStore.normalizeEmail(req.getEmail());
+        // Consumes the OTP; wrong guesses count towards its attempt limit
+        if (!otpStore.verify(email, req.getOtp()))
+            throw new BadRequestException("Invalid or expired OTP");
+
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        user.setPassword(hashingExecutor.execute(() -> passwordEncoder.encode(req.getNewPassword())));
+        userRepository.save(user);
+        auditTrail.record(user.getId(), "RESET_PASSWORD");
+        return new ApiResponse(true, "Password updated", null);
+    }
 }
 
@@ -0,0 +1,444 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// ================= BOOK SEARCH INDEX =================
+// In-process inverted index over book name + description with BM25 ranking. It is rebuilt
+// from the DB at startup and kept current from BookChangedEvents; soft-deleted books are
+// never indexed. Until the first rebuild finishes, BookService falls back to SQL search; a failed
+// rebuild is retried every search.index.retry-ms. The last query word is a prefix once it has
+// MIN_PREFIX characters (shorter ones match exactly). A prefix that expands to more than
+// MAX_PREFIX_TERMS terms is scored on its most frequent ones and the total is then extrapolated
+// and flagged as estimated; otherwise total counts every matching book.
+@Service
+@RequiredArgsConstructor
+public class BookSearchIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_BOOST = 2; // name terms count as if they appeared twice
+    private static final int REBUILD_BATCH = 5000;
+    static final int MIN_PREFIX = 3;
+    static final int MAX_PREFIX_TERMS = 256;
+
+    private final BookRepository bookRepository;
+
+    // term -> postings sorted by bookId; the term map is sorted so the last query word can be prefix-matched
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Integer> docLengths = new HashMap<>();
+    private long totalLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // Books removed while a rebuild runs (guarded by the write lock): a batch read before the
+    // delete committed must not add them back
+    private Set<Long> removedDuringRebuild;
+
+    public record Hits(List<Long> ids, List<Double> scores, long total, boolean totalEstimated) {
+        static final Hits NONE = new Hits(List.of(), List.of(), 0, false);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildInBackground() {
+        if (!rebuilding.compareAndSet(false, true)) return;
+        Thread.ofVirtual().name("search-index-rebuild").start(() -> {
+            try {
+                rebuild();
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    // Books indexed by a failed attempt are skipped by index(), so a retry only adds the rest
+    @Scheduled(fixedDelayString = "${search.index.retry-ms:60000}", initialDelayString = "${search.index.retry-ms:60000}")
+    public void retryFailedRebuild() {
+        if (!ready) rebuildInBackground();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int indexed = 0;
+        setRemovedDuringRebuild(new HashSet<>());
+        try {
+            while (true) {
+                List<BookRepository.SearchDocument> batch =
+                        bookRepository.findSearchDocumentsAfter(afterId, PageRequest.ofSize(REBUILD_BATCH));
+                if (batch.isEmpty()) break;
+                for (BookRepository.SearchDocument doc : batch) {
+                    index(doc.getId(), doc.getName(), doc.getDescription(), true);
+                    afterId = doc.getId();
+                }
+                indexed += batch.size();
+            }
+            ready = true;
+            System.out.println("Search index built: " + indexed + " books in " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("Search index rebuild failed, SQL search stays active: " + e.getMessage());
+        } finally {
+            setRemovedDuringRebuild(null);
+        }
+    }
+
+    private void setRemovedDuringRebuild(Set<Long> removed) {
+        lock.writeLock().lock();
+        try {
+            removedDuringRebuild = removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs after the upload/delete transaction commits, so rolled-back changes never reach the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookService.BookChangedEvent event) {
+        if (event.deleted()) remove(event.bookId(), event.name(), event.description());
+        else index(event.bookId(), event.name(), event.description());
+    }
+
+    public void index(Long bookId, String name, String description) {
+        index(bookId, name, description, false);
+    }
+
+    private void index(Long bookId, String name, String description, boolean fromRebuild) {
+        Map<String, Integer> terms = termFrequencies(name, description);
+        lock.writeLock().lock();
+        try {
+            if (docLengths.containsKey(bookId)) return;
+            if (fromRebuild && removedDuringRebuild != null && removedDuringRebuild.contains(bookId)) return;
+            int length = 0;
+            for (int tf : terms.values()) length += tf;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new Postings()).put(bookId, term.getValue(), length);
+            }
+            docLengths.put(bookId, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId, String name, String description) {
+        Map<String, Integer> terms = termFrequencies(name, description);
+        lock.writeLock().lock();
+        try {
+            if (removedDuringRebuild != null) removedDuringRebuild.add(bookId);
+            Integer length = docLengths.remove(bookId);
+            if (length == null) return;
+            totalLength -= length;
+            for (String term : terms.keySet()) {
+                Postings docs = postings.get(term);
+                if (docs == null) continue;
+                docs.remove(bookId);
+                if (docs.size == 0) postings.remove(term);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every query word must match (the last one as a prefix); results are ordered by BM25 score
+    public Hits search(String query, int offset, int limit) {
+        return search(query, false, 0, 0, offset, limit);
+    }
+
+    // Keyset variant: returns the hits ranked strictly after (afterScore, afterId)
+    public Hits searchAfter(String query, double afterScore, long afterId, int limit) {
+        return search(query, true, afterScore, afterId, 0, limit);
+    }
+
+    private Hits search(String query, boolean keyset, double afterScore, long afterId, int offset, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) return Hits.NONE;
+
+        lock.readLock().lock();
+        try {
+            // Postings lists per query word; the last word may expand to several terms
+            List<List<Postings>> terms = new ArrayList<>(words.size());
+            double totalScale = 1;
+            for (int w = 0; w < words.size(); w++) {
+                String word = words.get(w);
+                if (w == words.size() - 1 && word.length() >= MIN_PREFIX) {
+                    PrefixTerms prefix = prefixTerms(word);
+                    terms.add(prefix.postings());
+                    totalScale = prefix.scale();
+                } else {
+                    Postings docs = postings.get(word);
+                    terms.add(docs == null ? List.of() : List.of(docs));
+                }
+                if (terms.get(w).isEmpty()) return Hits.NONE;
+            }
+
+            Scores scores = score(terms);
+            TopK top = new TopK(offset + limit);
+            long total = 0;
+            for (int slot = 0; slot < scores.ids.length; slot++) {
+                if (scores.matched[slot] < words.size()) continue;
+                total++;
+                double score = scores.scores[slot];
+                long bookId = scores.ids[slot];
+                if (keyset && !ranksBefore(afterScore, afterId, score, bookId)) continue;
+                top.offer(score, bookId);
+            }
+
+            Hits ranked = top.drain(offset);
+            boolean estimated = totalScale > 1;
+            return new Hits(ranked.ids(), ranked.scores(), estimated ? Math.round(total * totalScale) : total, estimated);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score first; ties go to the newer (higher) id
+    private static boolean ranksBefore(double score, long bookId, double otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && bookId > otherId);
+    }
+
+    // The terms a prefix expands to. Beyond MAX_PREFIX_TERMS only the most frequent ones are kept
+    // and scale is documents(all terms) / documents(kept terms), used to extrapolate the total.
+    private record PrefixTerms(List<Postings> postings, double scale) {}
+
+    private PrefixTerms prefixTerms(String prefix) {
+        Collection<Postings> all = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        if (all.size() <= MAX_PREFIX_TERMS) return new PrefixTerms(new ArrayList<>(all), 1);
+        PriorityQueue<Postings> largest = new PriorityQueue<>(MAX_PREFIX_TERMS + 1, Comparator.comparingInt(p -> p.size));
+        long allDocs = 0;
+        for (Postings docs : all) {
+            allDocs += docs.size;
+            largest.offer(docs);
+            if (largest.size() > MAX_PREFIX_TERMS) largest.poll();
+        }
+        long keptDocs = 0;
+        for (Postings docs : largest) keptDocs += docs.size;
+        return new PrefixTerms(new ArrayList<>(largest), (double) allDocs / keptDocs);
+    }
+
+    // BM25 per book. The word with the fewest postings seeds the candidates; the other words only
+    // update candidates already present, so memory is bounded by the rarest word.
+    private Scores score(List<List<Postings>> terms) {
+        int docCount = docLengths.size();
+        double avgLength = docCount == 0 ? 1 : (double) totalLength / docCount;
+
+        int seed = 0;
+        long seedSize = Long.MAX_VALUE;
+        for (int w = 0; w < terms.size(); w++) {
+            long size = 0;
+            for (Postings docs : terms.get(w)) size += docs.size;
+            if (size < seedSize) {
+                seed = w;
+                seedSize = size;
+            }
+        }
+
+        Scores scores = new Scores((int) Math.min(seedSize, docCount));
+        addWord(scores, terms.get(seed), seed, true, docCount, avgLength);
+        for (int w = 0; w < terms.size(); w++) {
+            if (w != seed) addWord(scores, terms.get(w), w, false, docCount, avgLength);
+        }
+        return scores;
+    }
+
+    private void addWord(Scores scores, List<Postings> terms, int word, boolean seed, int docCount, double avgLength) {
+        for (Postings docs : terms) {
+            double idf = Math.log(1 + (docCount - docs.size + 0.5) / (docs.size + 0.5));
+            for (int i = 0; i < docs.size; i++) {
+                long bookId = docs.ids[i];
+                int slot = seed ? scores.slotFor(bookId) : scores.find(bookId);
+                if (slot < 0) continue;
+                int tf = docs.tfs[i];
+                double norm = K1 * (1 - B + B * docs.lengths[i] / avgLength);
+                scores.scores[slot] += idf * tf * (K1 + 1) / (tf + norm);
+                // A book can match the same prefix word through several terms; count the word once
+                if (scores.lastWord[slot] != word + 1) {
+                    scores.lastWord[slot] = word + 1;
+                    scores.matched[slot]++;
+                }
+            }
+        }
+    }
+
+    // Open-addressing bookId -> (score, words matched) table, sized for the seed word up front.
+    // Empty slots hold id 0 (book ids start at 1).
+    private static final class Scores {
+        final long[] ids;
+        final double[] scores;
+        final int[] matched;
+        final int[] lastWord;
+        final int mask;
+
+        Scores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+            ids = new long[capacity];
+            scores = new double[capacity];
+            matched = new int[capacity];
+            lastWord = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        int slotFor(long bookId) {
+            int slot = hash(bookId) & mask;
+            while (ids[slot] != 0 && ids[slot] != bookId) slot = (slot + 1) & mask;
+            ids[slot] = bookId;
+            return slot;
+        }
+
+        int find(long bookId) {
+            int slot = hash(bookId) & mask;
+            while (ids[slot] != 0) {
+                if (ids[slot] == bookId) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private static int hash(long bookId) {
+            long h = bookId * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // Min-heap of the best k (score, id) pairs: the worst kept hit sits at the root, so a hit that
+    // does not beat it is dropped after one comparison
+    private static final class TopK {
+        final double[] scores;
+        final long[] ids;
+        int size;
+
+        TopK(int k) {
+            scores = new double[Math.max(0, k)];
+            ids = new long[Math.max(0, k)];
+        }
+
+        void offer(double score, long bookId) {
+            if (size < scores.length) {
+                scores[size] = score;
+                ids[size] = bookId;
+                siftUp(size++);
+            } else if (size > 0 && ranksBefore(score, bookId, scores[0], ids[0])) {
+                scores[0] = score;
+                ids[0] = bookId;
+                siftDown(0);
+            }
+        }
+
+        // Best first, skipping the first offset hits
+        Hits drain(int offset) {
+            int count = size;
+            Long[] rankedIds = new Long[count];
+            Double[] rankedScores = new Double[count];
+            for (int i = count - 1; i >= 0; i--) {
+                rankedIds[i] = ids[0];
+                rankedScores[i] = scores[0];
+                size--;
+                scores[0] = scores[size];
+                ids[0] = ids[size];
+                siftDown(0);
+            }
+            int from = Math.min(offset, count);
+            return new Hits(Arrays.asList(rankedIds).subList(from, count), Arrays.asList(rankedScores).subList(from, count), count, false);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!ranksBefore(scores[parent], ids[parent], scores[i], ids[i])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && ranksBefore(scores[worst], ids[worst], scores[left], ids[left])) worst = left;
+                if (right < size && ranksBefore(scores[worst], ids[worst], scores[right], ids[right])) worst = right;
+                if (worst == i) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+    }
+
+    // Parallel primitive arrays sorted by bookId. Ids are allocated in increasing order, so
+    // indexing a new book appends; only the startup rebuild racing with uploads inserts mid-array.
+    // The book's length is repeated per posting so scoring needs no boxed docLengths lookup.
+    private static final class Postings {
+        long[] ids = new long[2];
+        int[] tfs = new int[2];
+        int[] lengths = new int[2];
+        int size;
+
+        void put(long bookId, int tf, int length) {
+            int i = Arrays.binarySearch(ids, 0, size, bookId);
+            if (i >= 0) {
+                tfs[i] = tf;
+                lengths[i] = length;
+                return;
+            }
+            i = -i - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            System.arraycopy(ids, i, ids, i + 1, size - i);
+            System.arraycopy(tfs, i, tfs, i + 1, size - i);
+            System.arraycopy(lengths, i, lengths, i + 1, size - i);
+            ids[i] = bookId;
+            tfs[i] = tf;
+            lengths[i] = length;
+            size++;
+        }
+
+        void remove(long bookId) {
+            int i = Arrays.binarySearch(ids, 0, size, bookId);
+            if (i < 0) return;
+            System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+            System.arraycopy(tfs, i + 1, tfs, i, size - i - 1);
+            System.arraycopy(lengths, i + 1, lengths, i, size - i - 1);
+            size--;
+        }
+    }
+
+    private static Map<String, Integer> termFrequencies(String name, String description) {
+        Map<String, Integer> tf = new HashMap<>();
+        for (String token : tokenize(name)) tf.merge(token, NAME_BOOST, Integer::sum);
+        for (String token : tokenize(description)) tf.merge(token, 1, Integer::sum);
+        return tf;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+}
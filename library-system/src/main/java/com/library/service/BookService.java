@@ -1,21 +1,49 @@
 package com.library.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.library.dto.LibraryDtos;
 import com.library.exception.GlobalExceptionHandler;
 import com.library.model.Book;
-import com.library.model.User;
 import com.library.repository.BookRepository;
 import com.library.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 // ================= BOOK SERVICE =================
 @Service
@@ -24,50 +52,263 @@ public class BookService {
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
     private final CloudinaryManager cloudinaryManager;
+    private final DownloadCounter downloadCounter;
+    private final AuditTrail auditTrail;
+    private final RemoteDeleteReaper remoteDeleteReaper;
+    private final BookSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    @Value("${books.cache.max-entries:10000}")
+    private long cacheMaxEntries;
+    @Value("${books.cache.ttl-ms:600000}")
+    private long cacheTtlMs;
+    @Value("${app.upload.bulk.max-files:20}")
+    private int bulkMaxFiles;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Read-through cache of getBook responses by id (base download count, without the unflushed delta)
+    private Cache<Long, LibraryDtos.BookResponse> bookCache;
+
+    // Catalog-wide change stamp behind the listing/search ETags: bumped after every committed upload
+    // or delete and every counted or flushed download. The epoch keeps stamps apart across restarts.
+    private final String catalogEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogChanges = new AtomicLong();
+
+    private static final int PREVIEW_PAGES = 5;
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final String CURSOR_LATEST = "t";
+    private static final String CURSOR_SEARCH = "s";
+
+    // Published on upload and soft delete; listeners (e.g. the search index) react after commit
+    public record BookChangedEvent(Long bookId, String name, String description, boolean deleted) {}
+
+    @PostConstruct
+    void initCache() {
+        bookCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(Duration.ofMillis(cacheTtlMs))
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size tagged cache=books
+        CaffeineCacheMetrics.monitor(meterRegistry, bookCache, "books");
+    }
+
+    // Not @Transactional on purpose: uploads run in two short DB phases around the remote upload,
+    // so no pooled connection is held for the seconds the Cloudinary call takes
     public LibraryDtos.BookResponse uploadBook(LibraryDtos.BookUploadRequest metadata, MultipartFile file, Long userId) throws IOException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("User not found"));
+        requireUser(userId);
 
         // Upload to Cloudinary with failover
         CloudinaryManager.UploadResult result = cloudinaryManager.uploadFile(file);
+        return saveUploadedBook(metadata, result, file.getSize(), userId, null);
+    }
 
-        // Generate Previews
-        List<String> previews = cloudinaryManager.generatePreviews(result.publicId(), result.accountIndex(), 5);
+    // Used by background upload jobs, which work from a spooled file rather than the request part
+    public LibraryDtos.BookResponse uploadBook(LibraryDtos.BookUploadRequest metadata, File file, Long userId) throws IOException {
+        return uploadBook(metadata, file, userId, null, result -> {});
+    }
+
+    // afterTransfer gets the Cloudinary file right before the book is saved. A non-null
+    // uploadJobId is stored on the book, so a re-run of the job can find it (findBookIdByUploadJob).
+    public LibraryDtos.BookResponse uploadBook(LibraryDtos.BookUploadRequest metadata, File file, Long userId,
+                                               String uploadJobId, Consumer<CloudinaryManager.UploadResult> afterTransfer) throws IOException {
+        requireUser(userId);
 
-        Book book = Book.builder()
+        CloudinaryManager.UploadResult result = cloudinaryManager.uploadFile(file);
+        afterTransfer.accept(result);
+        return saveUploadedBook(metadata, result, file.length(), userId, uploadJobId);
+    }
+
+    public Optional<Long> findBookIdByUploadJob(String uploadJobId) {
+        return bookRepository.findIdByUploadJobId(uploadJobId);
+    }
+
+    // Files are uploaded in parallel, one thread each; CloudinaryAccountRouter's per-account slots
+    // bound the concurrency and spill the surplus onto the other accounts. All successful files are
+    // then stored in one transaction (batched INSERTs). A failed file only fails its own item.
+    public LibraryDtos.BulkUploadResponse bulkUpload(List<LibraryDtos.BookUploadRequest> metadata, List<MultipartFile> files, Long userId) {
+        if (files == null || files.isEmpty())
+            throw new GlobalExceptionHandler.BadRequestException("No files");
+        if (files.size() > bulkMaxFiles)
+            throw new GlobalExceptionHandler.BadRequestException("At most " + bulkMaxFiles + " files per request");
+        requireUser(userId);
+
+        List<Future<CloudinaryManager.UploadResult>> uploads = new ArrayList<>();
+        try (ExecutorService fanOut = Executors.newThreadPerTaskExecutor(bulkThreadFactory())) {
+            for (MultipartFile file : files) {
+                uploads.add(fanOut.submit(() -> cloudinaryManager.uploadFile(file)));
+            }
+        } // close() waits until every upload has finished
+
+        LibraryDtos.BulkUploadItem[] items = new LibraryDtos.BulkUploadItem[files.size()];
+        List<Integer> uploadedIndexes = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                CloudinaryManager.UploadResult result = uploads.get(i).get();
+                books.add(buildBook(metadata.get(i), result, files.get(i).getSize(), userId));
+                uploadedIndexes.add(i);
+            } catch (ExecutionException e) {
+                items[i] = failedItem(i, files.get(i), e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                items[i] = failedItem(i, files.get(i), "Interrupted");
+            }
+        }
+
+        if (!books.isEmpty()) {
+            try {
+                List<Book> saved = transactionTemplate.execute(status -> insertBooks(books, userId));
+                for (int k = 0; k < saved.size(); k++) {
+                    int i = uploadedIndexes.get(k);
+                    items[i] = LibraryDtos.BulkUploadItem.builder()
+                            .index(i).fileName(files.get(i).getOriginalFilename()).success(true)
+                            .book(mapToResponse(saved.get(k)))
+                            .build();
+                    auditTrail.record(userId, "UPLOAD_BOOK:" + saved.get(k).getId());
+                }
+            } catch (RuntimeException e) {
+                // Nothing was stored, so none of the uploaded files may stay in Cloudinary
+                discardUploads(books.stream()
+                        .map(b -> new RemoteDeleteReaper.RemoteFile(b.getPublicId(), b.getAccountIndex(), b.getResourceType()))
+                        .toList());
+                uploadedIndexes.forEach(i -> items[i] = failedItem(i, files.get(i), "Could not save book: " + e.getMessage()));
+            }
+        }
+
+        List<LibraryDtos.BulkUploadItem> results = List.of(items);
+        int uploaded = (int) results.stream().filter(LibraryDtos.BulkUploadItem::isSuccess).count();
+        return LibraryDtos.BulkUploadResponse.builder()
+                .uploaded(uploaded)
+                .failed(results.size() - uploaded)
+                .items(results)
+                .build();
+    }
+
+    // Fan-out threads follow the app-wide thread mode, like the upload-job workers
+    private ThreadFactory bulkThreadFactory() {
+        return virtualThreads
+                ? Thread.ofVirtual().name("bulk-upload-", 0).factory()
+                : Thread.ofPlatform().name("bulk-upload-", 0).daemon().factory();
+    }
+
+    private static LibraryDtos.BulkUploadItem failedItem(int index, MultipartFile file, String error) {
+        return LibraryDtos.BulkUploadItem.builder()
+                .index(index).fileName(file.getOriginalFilename()).success(false).error(error)
+                .build();
+    }
+
+    private List<Book> insertBooks(List<Book> books, Long userId) {
+        List<Book> saved = bookRepository.saveAll(books);
+        if (userRepository.incrementUploadsCount(userId, saved.size()) == 0)
+            throw new GlobalExceptionHandler.ResourceNotFoundException("User not found");
+        saved.forEach(b -> eventPublisher.publishEvent(new BookChangedEvent(b.getId(), b.getName(), b.getDescription(), false)));
+        return saved;
+    }
+
+    // Phase one: fail fast before spending an upload on an unknown user
+    private void requireUser(Long userId) {
+        if (!userRepository.existsById(userId))
+            throw new GlobalExceptionHandler.ResourceNotFoundException("User not found");
+    }
+
+    // Phase two: one short transaction for the book row and the owner's counter. If it fails, the
+    // file already in Cloudinary would be orphaned, so it is queued for deletion before rethrowing.
+    // Also called directly for an upload job whose earlier run got the file into Cloudinary.
+    public LibraryDtos.BookResponse saveUploadedBook(LibraryDtos.BookUploadRequest metadata, CloudinaryManager.UploadResult result,
+                                                     long size, Long userId, String uploadJobId) {
+        LibraryDtos.BookResponse saved;
+        try {
+            saved = transactionTemplate.execute(status -> insertBook(metadata, result, size, userId, uploadJobId));
+        } catch (RuntimeException e) {
+            discardUploads(List.of(new RemoteDeleteReaper.RemoteFile(result.publicId(), result.accountIndex(), result.resourceType())));
+            throw e;
+        }
+        auditTrail.record(userId, "UPLOAD_BOOK:" + saved.getId());
+        return saved;
+    }
+
+    // Orphan cleanup goes through the delete outbox; if the DB itself is failing, delete right away
+    private void discardUploads(List<RemoteDeleteReaper.RemoteFile> files) {
+        try {
+            remoteDeleteReaper.enqueueAll(files);
+        } catch (RuntimeException e) {
+            files.forEach(f -> cloudinaryManager.deleteFile(f.publicId(), f.accountIndex(), f.resourceType()));
+        }
+    }
+
+    private LibraryDtos.BookResponse insertBook(LibraryDtos.BookUploadRequest metadata, CloudinaryManager.UploadResult result,
+                                                long size, Long userId, String uploadJobId) {
+        Book book = buildBook(metadata, result, size, userId);
+        book.setUploadJobId(uploadJobId);
+        // FIX: save() returns the entity directly, so no .orElseThrow() here
+        Book saved = bookRepository.save(book);
+
+        // Update user stats in place; the user may have been deleted while the file was uploading
+        if (userRepository.incrementUploadsCount(userId, 1) == 0)
+            throw new GlobalExceptionHandler.ResourceNotFoundException("User not found");
+
+        eventPublisher.publishEvent(new BookChangedEvent(saved.getId(), saved.getName(), saved.getDescription(), false));
+        return mapToResponse(saved);
+    }
+
+    private Book buildBook(LibraryDtos.BookUploadRequest metadata, CloudinaryManager.UploadResult result, long size, Long userId) {
+        return Book.builder()
                 .name(metadata.getName())
                 .description(metadata.getDescription())
                 .ownerId(userId)
                 .publicId(result.publicId())
                 .accountIndex(result.accountIndex())
+                .resourceType(result.resourceType())
                 .viewUrl(result.url())
                 .downloadUrl(result.url()) // Cloudinary delivers raw file
                 .format(result.format())
-                .size(file.getSize())
-                .pagesPreview(previews)
+                .size(size)
                 .createdAt(LocalDateTime.now())
                 .deleted(false)
                 .build();
-
-        // FIX: save() returns the entity directly, so no .orElseThrow() here
-        Book saved = bookRepository.save(book);
-
-        // Update user stats
-        user.setUploadsCount(user.getUploadsCount() + 1);
-        userRepository.save(user);
-
-        return mapToResponse(saved);
     }
 
     public LibraryDtos.BookResponse getBook(Long id) {
+        LibraryDtos.BookResponse cached = bookCache.get(id, this::loadBook);
+        // Copy, never mutate the shared cached instance; include downloads counted since the last flush
+        return cached.toBuilder()
+                .downloads(cached.getDownloads() + (int) downloadCounter.pending(id))
+                .build();
+    }
+
+    private LibraryDtos.BookResponse loadBook(Long id) {
         Book book = bookRepository.findById(id)
                 .filter(b -> !b.isDeleted())
                 .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Book not found"));
         return mapToResponse(book);
     }
 
+    // Evicted after the delete commits, so a concurrent read can't re-cache the pre-delete state
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        bookCache.invalidate(event.bookId());
+        catalogChanges.incrementAndGet();
+    }
+
+    // Flushed counts are now in the DB row and gone from pending, so the cached base value is stale.
+    // Caffeine holds the eviction until an in-flight load of the same id has stored its row, so a
+    // row read before the UPDATE committed cannot outlive it.
+    @EventListener
+    public void onDownloadsFlushed(DownloadCounter.DownloadsFlushedEvent event) {
+        bookCache.invalidateAll(event.bookIds());
+        catalogChanges.incrementAndGet();
+    }
+
+    // Read before the page is loaded: every change bumps the stamp after it is visible, so a
+    // stamp never vouches for data older than itself. SQL fallback and index rank differently.
+    public String catalogVersion() {
+        return catalogEpoch + "." + catalogChanges.get() + (searchIndex.isReady() ? "i" : "s");
+    }
+
     @Transactional
     public void deleteBook(Long bookId, Long userId, boolean isAdmin) {
         Book book = bookRepository.findById(bookId)
@@ -80,31 +321,124 @@ public class BookService {
 
         // FIX: save() returns the entity directly, so no .orElseThrow() here
         bookRepository.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(book.getId(), book.getName(), book.getDescription(), true));
+        auditTrail.record(userId, "DELETE_BOOK:" + bookId);
 
-        // Also remove from Cloudinary (optional, usually keep for backup or hard delete later)
-        cloudinaryManager.deleteFile(book.getPublicId(), book.getAccountIndex());
+        // Also remove from Cloudinary: queued in this transaction, deleted in bulk by RemoteDeleteReaper
+        remoteDeleteReaper.enqueue(book.getPublicId(), book.getAccountIndex(), book.getResourceType());
     }
 
-    public void incrementDownload(Long bookId) {
-        // findById returns Optional -> We use .orElseThrow()
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new GlobalExceptionHandler.ResourceNotFoundException("Book not found"));
-
-        book.setDownloads(book.getDownloads() + 1);
+    public void incrementDownload(Long bookId, Long userId) {
+        // Existence check only, no entity load; the increment is batched by DownloadCounter
+        if (!bookRepository.existsById(bookId))
+            throw new GlobalExceptionHandler.ResourceNotFoundException("Book not found");
 
-        // FIX: save() returns the entity directly -> We DO NOT use .orElseThrow()
-        bookRepository.save(book);
+        downloadCounter.increment(bookId);
+        catalogChanges.incrementAndGet();
+        auditTrail.record(userId, "DOWNLOAD_BOOK:" + bookId);
     }
 
     public Page<LibraryDtos.BookResponse> searchBooks(String query, Pageable pageable) {
         if (query == null || query.isBlank()) {
             return bookRepository.findByDeletedFalse(pageable).map(this::mapToResponse);
         }
-        return bookRepository.findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(query, query, pageable)
-                .map(this::mapToResponse);
+        if (!searchIndex.isReady()) {
+            return bookRepository.searchActive(query, pageable).map(this::mapToResponse);
+        }
+
+        // Ranked ids from the index, then one PK lookup for the page
+        BookSearchIndex.Hits hits = searchIndex.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total());
     }
 
-    private LibraryDtos.BookResponse mapToResponse(Book b) {
+    // Cursor mode: every page is one seek on (createdAt, id) -- or on (score, id) for text
+    // queries -- instead of LIMIT/OFFSET plus COUNT(*). The total is only computed on request.
+    public LibraryDtos.CursorPage<LibraryDtos.BookResponse> scrollBooks(String query, String cursor, int size, boolean withCount) {
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+        String[] position = decodeCursor(cursor);
+
+        if (query == null || query.isBlank()) {
+            if (position != null && !CURSOR_LATEST.equals(position[0]))
+                throw new GlobalExceptionHandler.BadRequestException("Cursor does not belong to this listing");
+            List<BookRepository.BookSummary> rows = position == null
+                    ? bookRepository.findLatest(PageRequest.ofSize(limit + 1))
+                    : bookRepository.findLatestBefore(LocalDateTime.parse(position[1]), Long.valueOf(position[2]), PageRequest.ofSize(limit + 1));
+            boolean hasMore = rows.size() > limit;
+            List<BookRepository.BookSummary> page = hasMore ? rows.subList(0, limit) : rows;
+            BookRepository.BookSummary last = page.isEmpty() ? null : page.get(page.size() - 1);
+            return LibraryDtos.CursorPage.<LibraryDtos.BookResponse>builder()
+                    .items(page.stream().map(this::mapToResponse).toList())
+                    .nextCursor(hasMore ? encodeCursor(CURSOR_LATEST, last.getCreatedAt().toString(), last.getId()) : null)
+                    .total(withCount ? bookRepository.countByDeletedFalse() : null)
+                    .build();
+        }
+
+        if (!searchIndex.isReady())
+            throw new GlobalExceptionHandler.ServiceUnavailableException("Search index is still building", 5);
+        if (position != null && !CURSOR_SEARCH.equals(position[0]))
+            throw new GlobalExceptionHandler.BadRequestException("Cursor does not belong to this search");
+        BookSearchIndex.Hits hits = position == null
+                ? searchIndex.search(query, 0, limit + 1)
+                : searchIndex.searchAfter(query, Double.parseDouble(position[1]), Long.parseLong(position[2]), limit + 1);
+        boolean hasMore = hits.ids().size() > limit;
+        List<Long> ids = hasMore ? hits.ids().subList(0, limit) : hits.ids();
+        return LibraryDtos.CursorPage.<LibraryDtos.BookResponse>builder()
+                .items(loadInOrder(ids))
+                .nextCursor(hasMore ? encodeCursor(CURSOR_SEARCH, String.valueOf(hits.scores().get(limit - 1)), ids.get(limit - 1)) : null)
+                .total(withCount ? hits.total() : null)
+                .totalEstimated(withCount && hits.totalEstimated() ? true : null)
+                .build();
+    }
+
+    private List<LibraryDtos.BookResponse> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, BookRepository.BookSummary> books = bookRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookRepository.BookSummary::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    // Opaque cursor: base64url("<kind>|<sort key>|<id>")
+    private static String encodeCursor(String kind, String sortKey, Long id) {
+        String raw = kind + "|" + sortKey + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) throw new IllegalArgumentException();
+            if (CURSOR_LATEST.equals(parts[0])) LocalDateTime.parse(parts[1]);
+            else Double.parseDouble(parts[1]);
+            Long.parseLong(parts[2]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new GlobalExceptionHandler.BadRequestException("Invalid cursor");
+        }
+    }
+
+    // Package-private so the JMH module (library-benchmarks) can measure the mapping in isolation
+    LibraryDtos.BookResponse mapToResponse(Book b) {
+        return LibraryDtos.BookResponse.builder()
+                .id(b.getId())
+                .name(b.getName())
+                .description(b.getDescription())
+                .ownerId(b.getOwnerId())
+                .viewUrl(b.getViewUrl())
+                .downloadUrl(b.getDownloadUrl())
+                .previews(previews(b.getPublicId(), b.getAccountIndex()))
+                .downloads(b.getDownloads())
+                .sizeBytes(b.getSize())
+                .createdAt(b.getCreatedAt())
+                .updatedAt(b.getUpdatedAt())
+                .build();
+    }
+
+    private LibraryDtos.BookResponse mapToResponse(BookRepository.BookSummary b) {
         return LibraryDtos.BookResponse.builder()
                 .id(b.getId())
                 .name(b.getName())
@@ -112,10 +446,17 @@ public class BookService {
                 .ownerId(b.getOwnerId())
                 .viewUrl(b.getViewUrl())
                 .downloadUrl(b.getDownloadUrl())
-                .previews(b.getPagesPreview())
+                .previews(previews(b.getPublicId(), b.getAccountIndex()))
                 .downloads(b.getDownloads())
                 .sizeBytes(b.getSize())
                 .createdAt(b.getCreatedAt())
+                .updatedAt(b.getUpdatedAt())
                 .build();
     }
+
+    // Preview URLs are pure functions of publicId/accountIndex, so they are rebuilt here instead of
+    // being stored per book
+    private List<String> previews(String publicId, int accountIndex) {
+        return cloudinaryManager.generatePreviews(publicId, accountIndex, PREVIEW_PAGES);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ================= CLOUDINARY ACCOUNT ROUTER =================
+// Orders accounts by health and remaining quota instead of always starting at account 0.
+// Each account has a circuit breaker: after repeated failures it is skipped for a cool-down,
+// then a single probe upload decides whether it closes again. A per-account slot limit caps
+// concurrent uploads, so parallel uploads spill over to the next account instead of piling up.
+// When every account is busy, uploads block on a condition that releaseSlot signals.
+@Service
+public class CloudinaryAccountRouter {
+    private final BookRepository bookRepository;
+    private final long quotaBytes;
+    private final int failureThreshold;
+    private final long openMs;
+    private final double latencyScaleMs;
+    private final int maxConcurrentPerAccount;
+
+    private volatile List<AccountStats> accounts = List.of();
+
+    // Slot releases so far; incremented under slotLock, so a waiter that checked it cannot miss the signal
+    private final AtomicLong slotReleases = new AtomicLong();
+    private final ReentrantLock slotLock = new ReentrantLock();
+    private final Condition slotReleased = slotLock.newCondition();
+
+    public CloudinaryAccountRouter(BookRepository bookRepository,
+                                   @Value("${cloudinary.router.quota-bytes:26843545600}") long quotaBytes,
+                                   @Value("${cloudinary.router.failure-threshold:3}") int failureThreshold,
+                                   @Value("${cloudinary.router.open-ms:60000}") long openMs,
+                                   @Value("${cloudinary.router.latency-scale-ms:5000}") double latencyScaleMs,
+                                   @Value("${cloudinary.router.max-concurrent-per-account:4}") int maxConcurrentPerAccount) {
+        this.bookRepository = bookRepository;
+        this.quotaBytes = quotaBytes;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.latencyScaleMs = latencyScaleMs;
+        this.maxConcurrentPerAccount = Math.max(1, maxConcurrentPerAccount);
+    }
+
+    public void register(int accountCount) {
+        List<AccountStats> stats = new ArrayList<>();
+        for (int i = 0; i < accountCount; i++) stats.add(new AccountStats(i, maxConcurrentPerAccount));
+        accounts = List.copyOf(stats);
+    }
+
+    // Used bytes per account come from the books table and are re-synced periodically to correct drift
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cloudinary.router.usage-refresh-ms:600000}", initialDelayString = "${cloudinary.router.usage-refresh-ms:600000}")
+    public void refreshUsage() {
+        try {
+            for (BookRepository.AccountUsage usage : bookRepository.sumSizeByAccountIndex()) {
+                AccountStats stats = stats(usage.getAccountIndex());
+                if (stats != null) stats.usedBytes.set(usage.getUsedBytes() == null ? 0 : usage.getUsedBytes());
+            }
+        } catch (Exception e) {
+            System.err.println("Could not refresh Cloudinary account usage: " + e.getMessage());
+        }
+    }
+
+    // Healthiest, least-loaded accounts first; accounts the file would push over quota go last
+    public List<Integer> routeOrder(long fileBytes) {
+        return accounts.stream()
+                .sorted(Comparator.comparingDouble(a -> score(a, fileBytes)))
+                .map(a -> a.index)
+                .toList();
+    }
+
+    // false while the account's circuit is open; in half-open state only one caller gets the probe
+    public boolean tryAcquire(int accountIndex) {
+        AccountStats stats = stats(accountIndex);
+        if (stats == null) return false;
+        long openUntil = stats.openUntil;
+        if (openUntil == 0) return true;
+        if (System.currentTimeMillis() < openUntil) return false;
+        return stats.probing.compareAndSet(false, true);
+    }
+
+    // Non-blocking: false when the account already runs max-concurrent-per-account uploads
+    public boolean tryAcquireSlot(int accountIndex) {
+        AccountStats stats = stats(accountIndex);
+        return stats != null && stats.slots.tryAcquire();
+    }
+
+    public void releaseSlot(int accountIndex) {
+        AccountStats stats = stats(accountIndex);
+        if (stats == null) return;
+        stats.slots.release();
+        slotLock.lock();
+        try {
+            slotReleases.incrementAndGet();
+            slotReleased.signalAll();
+        } finally {
+            slotLock.unlock();
+        }
+    }
+
+    // Read before trying the accounts; awaitSlotRelease then returns at once if a slot was freed meanwhile
+    public long slotReleases() {
+        return slotReleases.get();
+    }
+
+    // Blocks until a slot is released after seenReleases was read; false when the timeout passes first
+    public boolean awaitSlotRelease(long seenReleases, long timeoutNanos) throws InterruptedException {
+        slotLock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (slotReleases.get() == seenReleases) {
+                if (remaining <= 0) return false;
+                remaining = slotReleased.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            slotLock.unlock();
+        }
+    }
+
+    public int inFlight(int accountIndex) {
+        AccountStats stats = stats(accountIndex);
+        return stats == null ? 0 : maxConcurrentPerAccount - stats.slots.availablePermits();
+    }
+
+    public void recordSuccess(int accountIndex, long latencyNanos, long bytes) {
+        AccountStats stats = stats(accountIndex);
+        if (stats == null) return;
+        stats.usedBytes.addAndGet(bytes);
+        synchronized (stats) {
+            stats.observe(latencyNanos / 1_000_000.0, 0);
+            stats.consecutiveFailures = 0;
+            stats.openUntil = 0;
+            stats.probing.set(false);
+        }
+    }
+
+    public void recordFailure(int accountIndex, long latencyNanos) {
+        AccountStats stats = stats(accountIndex);
+        if (stats == null) return;
+        synchronized (stats) {
+            stats.observe(latencyNanos / 1_000_000.0, 1);
+            stats.consecutiveFailures++;
+            // A failed probe re-opens immediately; otherwise open once the threshold is reached
+            if (stats.probing.get() || stats.consecutiveFailures >= failureThreshold) {
+                stats.openUntil = System.currentTimeMillis() + openMs;
+                System.err.println("Cloudinary account " + accountIndex + " circuit opened for " + openMs + "ms");
+            }
+            stats.probing.set(false);
+        }
+    }
+
+    public boolean isOpen(int accountIndex) {
+        AccountStats stats = stats(accountIndex);
+        return stats != null && stats.openUntil != 0;
+    }
+
+    public long usedBytes(int accountIndex) {
+        AccountStats stats = stats(accountIndex);
+        return stats == null ? 0 : stats.usedBytes.get();
+    }
+
+    private double score(AccountStats a, long fileBytes) {
+        double quotaUse = (double) (a.usedBytes.get() + fileBytes) / quotaBytes;
+        double score = quotaUse + a.latencyMs / latencyScaleMs + a.errorRate * 2;
+        if (quotaUse > 1) score += 100;
+        if (a.openUntil != 0) score += 1000;
+        return score;
+    }
+
+    private AccountStats stats(int accountIndex) {
+        List<AccountStats> current = accounts;
+        return accountIndex >= 0 && accountIndex < current.size() ? current.get(accountIndex) : null;
+    }
+
+    private static final class AccountStats {
+        private static final double ALPHA = 0.2; // EWMA weight of the newest sample
+
+        final int index;
+        final AtomicLong usedBytes = new AtomicLong();
+        final AtomicBoolean probing = new AtomicBoolean();
+        final Semaphore slots;
+        volatile double latencyMs;
+        volatile double errorRate;
+        volatile long openUntil; // 0 = circuit closed
+        int consecutiveFailures;
+
+        AccountStats(int index, int maxConcurrent) {
+            this.index = index;
+            this.slots = new Semaphore(maxConcurrent);
+        }
+
+        void observe(double sampleLatencyMs, double failed) {
+            latencyMs = latencyMs == 0 ? sampleLatencyMs : latencyMs + ALPHA * (sampleLatencyMs - latencyMs);
+            errorRate = errorRate + ALPHA * (failed - errorRate);
+        }
+    }
+}
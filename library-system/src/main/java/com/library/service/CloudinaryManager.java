@@ -2,16 +2,31 @@ package com.library.service;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@RequiredArgsConstructor
 public class CloudinaryManager {
+    // Cloudinary's own default when a call names no resource type
+    public static final String DEFAULT_RESOURCE_TYPE = "image";
+
+    private final CloudinaryAccountRouter accountRouter;
+    private final MeterRegistry meterRegistry;
 
     // Account 0
     @Value("${cloudinary.accounts[0].cloud-name}") private String c0Name;
@@ -38,6 +53,22 @@ public class CloudinaryManager {
     @Value("${cloudinary.accounts[4].api-key}") private String c4Key;
     @Value("${cloudinary.accounts[4].api-secret}") private String c4Secret;
 
+    // Files above the threshold go through Cloudinary's chunked upload with a fixed chunk buffer;
+    // smaller ones are streamed from disk in a single request
+    @Value("${cloudinary.large-upload-threshold-bytes:20971520}") private long largeUploadThreshold;
+    @Value("${cloudinary.chunk-size-bytes:6291456}") private int chunkSize;
+
+    // Overrides the Cloudinary API host, e.g. the local stub (profile stub-cloudinary) for offline runs
+    @Value("${cloudinary.upload-prefix:}") private String uploadPrefix;
+
+    // How long an upload waits for a free per-account slot when every healthy account is busy
+    @Value("${cloudinary.router.slot-wait-ms:120000}") private long slotWaitMs;
+
+    // A hung Cloudinary call fails after these instead of blocking its thread (and slot) for good.
+    // The read timeout applies per socket read, so long uploads are fine while bytes keep moving.
+    @Value("${cloudinary.connect-timeout-ms:10000}") private int connectTimeoutMs;
+    @Value("${cloudinary.read-timeout-ms:60000}") private int readTimeoutMs;
+
     private final List<Cloudinary> clients = new ArrayList<>();
 
     @PostConstruct
@@ -47,6 +78,20 @@ public class CloudinaryManager {
         addClient(c2Name, c2Key, c2Secret);
         addClient(c3Name, c3Key, c3Secret);
         addClient(c4Name, c4Key, c4Secret);
+        accountRouter.register(clients.size());
+
+        for (int i = 0; i < clients.size(); i++) {
+            final int account = i;
+            Gauge.builder("cloudinary.account.used.bytes", accountRouter, r -> r.usedBytes(account))
+                    .tag("account", String.valueOf(account))
+                    .register(meterRegistry);
+            Gauge.builder("cloudinary.account.circuit.open", accountRouter, r -> r.isOpen(account) ? 1 : 0)
+                    .tag("account", String.valueOf(account))
+                    .register(meterRegistry);
+            Gauge.builder("cloudinary.account.uploads.active", accountRouter, r -> r.inFlight(account))
+                    .tag("account", String.valueOf(account))
+                    .register(meterRegistry);
+        }
     }
 
     private void addClient(String name, String key, String secret) {
@@ -55,44 +100,150 @@ public class CloudinaryManager {
         config.put("cloud_name", name);
         config.put("api_key", key);
         config.put("api_secret", secret);
+        if (!uploadPrefix.isBlank()) config.put("upload_prefix", uploadPrefix);
+        // Admin API client (bulk delete, usage): one timeout in seconds for connect and read
+        config.put("timeout", String.valueOf(Math.max(1, readTimeoutMs / 1000)));
         clients.add(new Cloudinary(config));
     }
 
     public UploadResult uploadFile(MultipartFile file) throws IOException {
-        // Failover logic: Try account 0, if fail/full, try 1, etc.
-        for (int i = 0; i < clients.size(); i++) {
+        // Spool to disk once; every failover attempt then streams from the file instead of a heap copy
+        Path spooled = Files.createTempFile("library-upload-", ".tmp");
+        try {
+            file.transferTo(spooled);
+            return uploadFile(spooled.toFile());
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    public UploadResult uploadFile(File file) throws IOException {
+        long size = file.length();
+        Set<Integer> attempted = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(slotWaitMs);
+        while (true) {
+            long seenReleases = accountRouter.slotReleases();
+            // Failover logic: try accounts healthiest/least-loaded first, skipping open circuits.
+            // Accounts without a free slot are passed over and retried once a slot frees up.
+            boolean busy = false;
+            for (int i : accountRouter.routeOrder(size)) {
+                if (attempted.contains(i)) continue;
+                if (!accountRouter.tryAcquireSlot(i)) {
+                    busy = true;
+                    continue;
+                }
+                try {
+                    attempted.add(i);
+                    if (!accountRouter.tryAcquire(i)) {
+                        meterRegistry.counter("cloudinary.circuit.skipped", "account", String.valueOf(i)).increment();
+                        continue;
+                    }
+                    UploadResult result = upload(i, file, size);
+                    if (result != null) return result;
+                    // Continue to next account
+                } finally {
+                    accountRouter.releaseSlot(i);
+                }
+            }
+            if (!busy) break;
+            // Block until an upload releases a slot instead of polling
             try {
-                Cloudinary client = clients.get(i);
-                Map params = ObjectUtils.asMap(
-                        "resource_type", "auto",
-                        "folder", "library_books"
-                );
-                Map uploadResult = client.uploader().upload(file.getBytes(), params);
-
-                return new UploadResult(
-                        (String) uploadResult.get("public_id"),
-                        (String) uploadResult.get("secure_url"),
-                        (String) uploadResult.get("format"),
-                        i // Account index
-                );
-            } catch (Exception e) {
-                System.err.println("Upload failed on account " + i + ": " + e.getMessage());
-                // Continue to next account
+                if (!accountRouter.awaitSlotRelease(seenReleases, deadline - System.nanoTime()))
+                    throw new IOException("Timed out waiting for a free Cloudinary upload slot.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free Cloudinary upload slot.");
             }
         }
-        throw new IOException("All Cloudinary accounts failed or quotas exceeded.");
+        throw new IOException("All Cloudinary accounts failed, are over quota or have open circuits.");
+    }
+
+    // null when the account failed; the failure is already recorded for the circuit breaker
+    private UploadResult upload(int i, File file, long size) {
+        long start = System.nanoTime();
+        try {
+            Cloudinary client = clients.get(i);
+            Map params = withTimeouts(ObjectUtils.asMap(
+                    "resource_type", "auto",
+                    "folder", "library_books"
+            ));
+            Map uploadResult = size > largeUploadThreshold
+                    ? client.uploader().uploadLarge(file, params, chunkSize)
+                    : client.uploader().upload(file, params);
+            long elapsed = System.nanoTime() - start;
+            accountRouter.recordSuccess(i, elapsed, size);
+            recordTime("cloudinary.upload", i, true, elapsed);
+
+            return new UploadResult(
+                    (String) uploadResult.get("public_id"),
+                    (String) uploadResult.get("secure_url"),
+                    (String) uploadResult.get("format"),
+                    // "auto" resolves to image, raw or video; deletes must name the same type
+                    Objects.toString(uploadResult.get("resource_type"), DEFAULT_RESOURCE_TYPE),
+                    i // Account index
+            );
+        } catch (Exception e) {
+            long elapsed = System.nanoTime() - start;
+            accountRouter.recordFailure(i, elapsed);
+            recordTime("cloudinary.upload", i, false, elapsed);
+            meterRegistry.counter("cloudinary.failover", "account", String.valueOf(i)).increment();
+            System.err.println("Upload failed on account " + i + ": " + e.getMessage());
+            return null;
+        }
     }
 
-    public void deleteFile(String publicId, int accountIndex) {
+    public void deleteFile(String publicId, int accountIndex, String resourceType) {
         if (accountIndex >= 0 && accountIndex < clients.size()) {
+            long start = System.nanoTime();
             try {
-                clients.get(accountIndex).uploader().destroy(publicId, ObjectUtils.emptyMap());
+                clients.get(accountIndex).uploader().destroy(publicId, withTimeouts(ObjectUtils.asMap("resource_type", resourceType)));
+                recordTime("cloudinary.delete", accountIndex, true, System.nanoTime() - start);
             } catch (Exception e) {
+                recordTime("cloudinary.delete", accountIndex, false, System.nanoTime() - start);
                 e.printStackTrace();
             }
         }
     }
 
+    // Admin API bulk delete, at most 100 public ids of one resource type per call. Returns the ids
+    // Cloudinary did not confirm, including ids missing from the reply; "not_found" counts as done,
+    // which is only safe because the ids are looked up under their own resource type.
+    // Throws if the call fails.
+    public List<String> deleteFiles(int accountIndex, String resourceType, List<String> publicIds) throws Exception {
+        if (accountIndex < 0 || accountIndex >= clients.size())
+            throw new IllegalArgumentException("Unknown Cloudinary account " + accountIndex);
+        long start = System.nanoTime();
+        try {
+            Map response = clients.get(accountIndex).api().deleteResources(publicIds, ObjectUtils.asMap("resource_type", resourceType));
+            recordTime("cloudinary.delete.batch", accountIndex, true, System.nanoTime() - start);
+            Map<?, ?> statuses = response.get("deleted") instanceof Map<?, ?> deleted ? deleted : Map.of();
+            return publicIds.stream()
+                    .filter(id -> {
+                        Object status = statuses.get(id);
+                        return !"deleted".equals(status) && !"not_found".equals(status);
+                    })
+                    .toList();
+        } catch (Exception e) {
+            recordTime("cloudinary.delete.batch", accountIndex, false, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    // Upload API calls take their timeouts per request, in milliseconds
+    private Map withTimeouts(Map params) {
+        params.put("connect_timeout", connectTimeoutMs);
+        params.put("timeout", readTimeoutMs);
+        return params;
+    }
+
+    private void recordTime(String operation, int accountIndex, boolean success, long nanos) {
+        Timer.builder(operation)
+                .tag("account", String.valueOf(accountIndex))
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
     public List<String> generatePreviews(String publicId, int accountIndex, int pages) {
         List<String> previews = new ArrayList<>();
         if (accountIndex < 0 || accountIndex >= clients.size()) return previews;
@@ -111,5 +262,5 @@ public class CloudinaryManager {
         return previews;
     }
 
-    public static record UploadResult(String publicId, String url, String format, int accountIndex) {}
+    public static record UploadResult(String publicId, String url, String format, String resourceType, int accountIndex) {}
 }
\ No newline at end of file
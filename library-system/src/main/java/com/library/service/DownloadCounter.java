@@ -0,0 +1,79 @@
+package com.library.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ================= DOWNLOAD COUNTERS =================
+// Downloads are counted in striped in-memory adders and written as relative increments
+// (downloads = downloads + ?) in one JDBC batch, so concurrent downloads never lose counts.
+// A flushed delta stays in pending until its UPDATE has committed and is subtracted right before
+// DownloadsFlushedEvent evicts the cached rows, so getBook (cached row + pending) does not lose it
+// while the write is in flight, and rows loaded afterwards read the committed count.
+@Service
+@RequiredArgsConstructor
+public class DownloadCounter {
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Published after a successful flush with the ids whose DB counts changed
+    public record DownloadsFlushedEvent(Set<Long> bookIds) {}
+
+    // bookId -> downloads not yet flushed. Adders are never removed (removing one could drop an
+    // increment racing with the flush); the map is bounded by the number of existing books.
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // Two overlapping flushes would both write the same not-yet-subtracted deltas
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public void increment(Long bookId) {
+        pending.computeIfAbsent(bookId, id -> new LongAdder()).increment();
+    }
+
+    public long pending(Long bookId) {
+        LongAdder adder = pending.get(bookId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${books.downloads.flush-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Object[]> batch = new ArrayList<>();
+            // Only this delta is subtracted after the write: increments racing with the flush
+            // stay in the adder for the next one
+            pending.forEach((bookId, adder) -> {
+                long delta = adder.sum();
+                if (delta > 0) batch.add(new Object[]{delta, bookId});
+            });
+            if (batch.isEmpty()) return;
+
+            try {
+                jdbcTemplate.batchUpdate("UPDATE books SET downloads = downloads + ? WHERE id = ?", batch);
+            } catch (Exception e) {
+                System.err.println("Download flush failed for " + batch.size() + " books, retrying next cycle: " + e.getMessage());
+                return;
+            }
+            for (Object[] row : batch) pending.get((Long) row[1]).add(-(Long) row[0]);
+            eventPublisher.publishEvent(new DownloadsFlushedEvent(
+                    batch.stream().map(row -> (Long) row[1]).collect(Collectors.toSet())));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// ================= LAST LOGIN WRITE-BEHIND =================
+// Logins only record the timestamp in memory. Repeated logins of the same user collapse
+// into one entry, and a scheduled flush writes all of them as a single JDBC batch.
+@Service
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+    private final JdbcTemplate jdbcTemplate;
+
+    // userId -> latest login time not yet written
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(Long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        List<Object[]> batch = new ArrayList<>();
+        for (Long userId : pending.keySet()) {
+            // remove() hands each entry to exactly one flush; later logins start a new entry
+            LocalDateTime loginTime = pending.remove(userId);
+            if (loginTime != null) batch.add(new Object[]{Timestamp.valueOf(loginTime), userId});
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            jdbcTemplate.batchUpdate("UPDATE users SET last_login = ? WHERE id = ?", batch);
+        } catch (Exception e) {
+            System.err.println("lastLogin flush failed for " + batch.size() + " users, retrying next cycle: " + e.getMessage());
+            for (Object[] row : batch) record((Long) row[1], ((Timestamp) row[0]).toLocalDateTime());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
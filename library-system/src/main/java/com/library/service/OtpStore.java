@@ -0,0 +1,151 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.exception.GlobalExceptionHandler;
+import com.library.model.PasswordResetToken;
+import com.library.repository.PasswordResetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ================= PASSWORD RESET OTP STORE =================
+// OTPs live in a size-bounded Caffeine cache that expires them after the TTL, one entry per
+// email (a new OTP replaces the old one). A per-email fixed window limits how many OTPs one
+// address can request, so a flood costs one map lookup per request and never grows the store.
+// With auth.otp.mirror-to-db the OTP lives in password_reset_token instead, so any node can
+// verify it and wrong guesses are counted in the row, across nodes. The sweeper purges expired
+// rows, including those written before this store.
+@Service
+public class OtpStore {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final PasswordResetRepository resetRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final int maxPerWindow;
+    private final Duration window;
+    private final int maxAttempts;
+    private final boolean mirrorToDb;
+
+    private final Cache<String, Otp> otps;
+    private final Cache<String, RequestWindow> requestWindows;
+
+    private record Otp(String code, LocalDateTime expiresAt, AtomicInteger failedAttempts) {}
+
+    private record RequestWindow(long startedAtMs, AtomicInteger count) {}
+
+    public OtpStore(PasswordResetRepository resetRepository, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                    @Value("${auth.otp.ttl-ms:900000}") long ttlMs,
+                    @Value("${auth.otp.max-entries:100000}") long maxEntries,
+                    @Value("${auth.otp.max-per-window:3}") int maxPerWindow,
+                    @Value("${auth.otp.window-ms:900000}") long windowMs,
+                    @Value("${auth.otp.max-attempts:5}") int maxAttempts,
+                    @Value("${auth.otp.mirror-to-db:false}") boolean mirrorToDb) {
+        this.resetRepository = resetRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.maxPerWindow = maxPerWindow;
+        this.window = Duration.ofMillis(windowMs);
+        this.maxAttempts = maxAttempts;
+        this.mirrorToDb = mirrorToDb;
+        this.otps = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).recordStats().build();
+        this.requestWindows = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(window).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, otps, "otp");
+    }
+
+    // Throws TooManyRequestsException once the address has used up its window
+    public String issue(String email) {
+        String key = normalizeEmail(email);
+        RequestWindow current = requestWindows.get(key, k -> new RequestWindow(System.currentTimeMillis(), new AtomicInteger()));
+        if (current.count().incrementAndGet() > maxPerWindow) {
+            meterRegistry.counter("auth.otp.requests", "outcome", "throttled").increment();
+            long retryAfterMs = current.startedAtMs() + window.toMillis() - System.currentTimeMillis();
+            throw new GlobalExceptionHandler.TooManyRequestsException("Too many OTP requests for this email",
+                    Math.max(1, (retryAfterMs + 999) / 1000));
+        }
+
+        String code = String.valueOf(100000 + RANDOM.nextInt(900000));
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        if (mirrorToDb) {
+            // One transaction: a concurrent issue for the same email never leaves two live tokens
+            transactionTemplate.executeWithoutResult(status -> {
+                resetRepository.deleteByEmail(key);
+                resetRepository.save(PasswordResetToken.builder().email(key).otp(code).expiresAt(expiresAt).build());
+            });
+        } else {
+            otps.put(key, new Otp(code, expiresAt, new AtomicInteger()));
+        }
+        meterRegistry.counter("auth.otp.requests", "outcome", "issued").increment();
+        return code;
+    }
+
+    // One-time check: a correct code is consumed, maxAttempts wrong guesses discard the OTP
+    public boolean verify(String email, String code) {
+        String key = normalizeEmail(email);
+        boolean valid = mirrorToDb ? verifyStored(key, code) : verifyCached(key, code);
+        meterRegistry.counter("auth.otp.verifications", "outcome", valid ? "valid" : "invalid").increment();
+        return valid;
+    }
+
+    private boolean verifyCached(String key, String code) {
+        Otp otp = otps.getIfPresent(key);
+        if (otp == null || otp.expiresAt().isBefore(LocalDateTime.now())) return false;
+
+        if (!matches(otp.code(), code)) {
+            if (otp.failedAttempts().incrementAndGet() >= maxAttempts) otps.invalidate(key);
+            return false;
+        }
+        // remove(key, otp): of two concurrent correct guesses only one consumes the OTP
+        return otps.asMap().remove(key, otp);
+    }
+
+    private boolean verifyStored(String key, String code) {
+        PasswordResetToken token = resetRepository.findFirstByEmail(key).orElse(null);
+        if (token == null || token.getExpiresAt().isBefore(LocalDateTime.now())) return false;
+
+        if (!matches(token.getOtp(), code)) {
+            resetRepository.incrementAttempts(key);
+            resetRepository.deleteByEmailIfExhausted(key, maxAttempts);
+            return false;
+        }
+        // Also fails when the attempt limit discarded the token after it was read
+        return resetRepository.deleteByEmailAndOtp(key, token.getOtp()) == 1;
+    }
+
+    private static boolean matches(String expected, String code) {
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), String.valueOf(code).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Caffeine expires lazily; cleanUp() releases expired entries even when nobody reads them
+    @Scheduled(fixedDelayString = "${auth.otp.sweep-ms:300000}")
+    public void sweep() {
+        otps.cleanUp();
+        requestWindows.cleanUp();
+        try {
+            int purged = resetRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+            if (purged > 0) System.out.println("Purged " + purged + " expired password reset tokens");
+        } catch (Exception e) {
+            System.err.println("Password reset token purge failed: " + e.getMessage());
+        }
+    }
+
+    // The OTP key; AuthService stores and looks up users by the same form
+    static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) throw new GlobalExceptionHandler.BadRequestException("Email required");
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,160 @@
+package com.library.service;
+
+import com.library.model.PendingRemoteDelete;
+import com.library.repository.PendingRemoteDeleteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// ================= REMOTE DELETE REAPER =================
+// Cloudinary files of deleted books go through the pending_remote_delete outbox: enqueue() runs in
+// the caller's transaction, so the row commits (or rolls back) together with the soft delete and
+// the request never waits on Cloudinary. The reaper takes the due rows, groups them per account
+// and resource type and removes them with the Admin API bulk delete, 100 ids per call. Failed or
+// unconfirmed ids are retried with exponential backoff; a row only disappears once Cloudinary
+// confirmed the delete. Running it on several nodes at once is harmless: a second delete of the
+// same id is "not_found". It runs on its own thread rather than the shared @Scheduled one, so a
+// slow Cloudinary call never holds up the DownloadCounter, last-login, audit or OTP jobs.
+@Service
+public class RemoteDeleteReaper {
+    private static final int MAX_IDS_PER_CALL = 100; // Cloudinary's limit for delete_resources
+    private static final int MAX_ERROR = 255;
+
+    private final PendingRemoteDeleteRepository repository;
+    private final CloudinaryManager cloudinaryManager;
+    private final int batchSize;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final long intervalMs;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cloudinary-reaper").daemon().factory());
+
+    private final Counter deleted;
+    private final Counter retried;
+
+    public RemoteDeleteReaper(PendingRemoteDeleteRepository repository, CloudinaryManager cloudinaryManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${cloudinary.reaper.batch-size:1000}") int batchSize,
+                              @Value("${cloudinary.reaper.backoff-ms:60000}") long backoffMs,
+                              @Value("${cloudinary.reaper.max-backoff-ms:3600000}") long maxBackoffMs,
+                              @Value("${cloudinary.reaper.interval-ms:30000}") long intervalMs) {
+        this.repository = repository;
+        this.cloudinaryManager = cloudinaryManager;
+        this.batchSize = batchSize;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.intervalMs = intervalMs;
+        deleted = meterRegistry.counter("cloudinary.remote.deletes", "outcome", "deleted");
+        retried = meterRegistry.counter("cloudinary.remote.deletes", "outcome", "retry");
+    }
+
+    @PostConstruct
+    public void start() {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                reap();
+            } catch (RuntimeException e) {
+                // An escaping exception would cancel all further runs
+                System.err.println("Cloudinary delete reaper run failed: " + e.getMessage());
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public record RemoteFile(String publicId, int accountIndex, String resourceType) {}
+
+    public void enqueue(String publicId, int accountIndex, String resourceType) {
+        enqueueAll(List.of(new RemoteFile(publicId, accountIndex, resourceType)));
+    }
+
+    // One saveAll: the pooled sequence ids let the rows go out as a single batched INSERT
+    public void enqueueAll(List<RemoteFile> files) {
+        LocalDateTime now = LocalDateTime.now();
+        repository.saveAll(files.stream()
+                .map(f -> PendingRemoteDelete.builder()
+                        .publicId(f.publicId())
+                        .accountIndex(f.accountIndex())
+                        .resourceType(f.resourceType())
+                        .nextAttemptAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList());
+    }
+
+    public void reap() {
+        List<PendingRemoteDelete> due;
+        try {
+            due = repository.findDue(LocalDateTime.now(), PageRequest.ofSize(batchSize));
+        } catch (Exception e) {
+            System.err.println("Could not load pending Cloudinary deletes: " + e.getMessage());
+            return;
+        }
+
+        // One bulk delete covers a single account and resource type
+        Map<Integer, Map<String, List<PendingRemoteDelete>>> byAccount = due.stream()
+                .collect(Collectors.groupingBy(PendingRemoteDelete::getAccountIndex,
+                        Collectors.groupingBy(PendingRemoteDelete::getResourceType)));
+        byAccount.forEach((account, byType) -> byType.forEach((resourceType, entries) -> {
+            for (int from = 0; from < entries.size(); from += MAX_IDS_PER_CALL) {
+                deleteChunk(account, resourceType, entries.subList(from, Math.min(from + MAX_IDS_PER_CALL, entries.size())));
+            }
+        }));
+    }
+
+    private void deleteChunk(int account, String resourceType, List<PendingRemoteDelete> chunk) {
+        List<String> publicIds = chunk.stream().map(PendingRemoteDelete::getPublicId).distinct().toList();
+        try {
+            Set<String> unconfirmed = new HashSet<>(cloudinaryManager.deleteFiles(account, resourceType, publicIds));
+            Map<Boolean, List<PendingRemoteDelete>> outcome = chunk.stream()
+                    .collect(Collectors.partitioningBy(p -> unconfirmed.contains(p.getPublicId())));
+            List<PendingRemoteDelete> done = outcome.get(false);
+            if (!done.isEmpty()) {
+                repository.deleteAllByIdInBatch(done.stream().map(PendingRemoteDelete::getId).toList());
+                deleted.increment(done.size());
+            }
+            reschedule(outcome.get(true), "Not confirmed by Cloudinary");
+        } catch (Exception e) {
+            System.err.println("Cloudinary bulk delete failed on account " + account + " for " + chunk.size()
+                    + " " + resourceType + " files, retrying later: " + e.getMessage());
+            reschedule(chunk, String.valueOf(e.getMessage()));
+        }
+    }
+
+    // One UPDATE per attempt count in the chunk; the delay doubles per attempt up to max-backoff-ms
+    private void reschedule(List<PendingRemoteDelete> entries, String error) {
+        if (entries.isEmpty()) return;
+        String lastError = error.length() <= MAX_ERROR ? error : error.substring(0, MAX_ERROR);
+        try {
+            entries.stream()
+                    .collect(Collectors.groupingBy(PendingRemoteDelete::getAttempts,
+                            Collectors.mapping(PendingRemoteDelete::getId, Collectors.toList())))
+                    .forEach((attempts, ids) -> repository.markFailed(ids, LocalDateTime.now().plusNanos(backoff(attempts) * 1_000_000), lastError));
+            retried.increment(entries.size());
+        } catch (Exception e) {
+            // The rows stay due and are picked up again next cycle
+            System.err.println("Could not reschedule pending Cloudinary deletes: " + e.getMessage());
+        }
+    }
+
+    private long backoff(int previousAttempts) {
+        return Math.min(maxBackoffMs, backoffMs << Math.min(previousAttempts, 20));
+    }
+}
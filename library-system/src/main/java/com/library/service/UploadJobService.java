@@ -0,0 +1,371 @@
+package com.library.service;
+
+import com.library.dto.LibraryDtos;
+import com.library.exception.GlobalExceptionHandler;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ================= ASYNC UPLOAD JOBS =================
+// The request only spools the file to local disk and returns a job id; a background pool
+// runs the Cloudinary upload and Book persistence. Each job is mirrored to a small
+// properties file next to its data, so unfinished jobs are resumed after a restart.
+// A job records its Cloudinary file before the book is saved and the book row carries the job id,
+// so a job interrupted after the transfer or after the insert never uploads or saves twice.
+// The wait queue is bounded: when it is full a new upload is refused with 503 and Retry-After.
+// Progress: 0 queued, 5 picked up, 10-90 while the file is sent to Cloudinary (estimated from the
+// file size and the throughput of earlier transfers, the HTTP client reports no byte progress),
+// 95 while the book is saved, 100 when done or failed.
+@Service
+public class UploadJobService {
+    public enum Status { QUEUED, UPLOADING, DONE, FAILED }
+
+    private static final int PICKED_UP = 5;
+    private static final int SAVING = 95;
+    private static final double INITIAL_BYTES_PER_MS = 1024; // ~1 MB/s until a transfer was measured
+    private static final double THROUGHPUT_ALPHA = 0.2; // EWMA weight of the newest transfer
+
+    private final BookService bookService;
+    private final Path spoolDir;
+    private final long retentionMs;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    // Resumed jobs that did not fit the queue at startup; workers drain it after their own job
+    private final Queue<UploadJob> backlog = new ConcurrentLinkedQueue<>();
+    private volatile double bytesPerMs = INITIAL_BYTES_PER_MS;
+
+    public UploadJobService(BookService bookService,
+                            @Value("${app.upload.spool-dir:${java.io.tmpdir}/library-upload-spool}") String spoolDir,
+                            @Value("${app.upload.workers:4}") int workers,
+                            @Value("${app.upload.queue-capacity:100}") int queueCapacity,
+                            @Value("${app.upload.retry-after-seconds:5}") long retryAfterSeconds,
+                            @Value("${app.upload.job-retention-ms:86400000}") long retentionMs,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) throws IOException {
+        this.bookService = bookService;
+        this.spoolDir = Files.createDirectories(Paths.get(spoolDir));
+        this.retentionMs = retentionMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        // Workers mostly wait on Cloudinary HTTP; they follow the app-wide thread mode like Tomcat does.
+        // The pool size still caps concurrent uploads in both modes.
+        ThreadFactory factory = virtualThreads
+                ? Thread.ofVirtual().name("upload-job-", 0).factory()
+                : Thread.ofPlatform().name("upload-job-", 0).daemon().factory();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public LibraryDtos.UploadJobResponse submit(LibraryDtos.BookUploadRequest metadata, MultipartFile file, Long userId) throws IOException {
+        // Cheap early refusal before the file is spooled; the rejection below covers the race
+        if (workers.getQueue().remainingCapacity() == 0) throw busy();
+        UploadJob job = new UploadJob(UUID.randomUUID().toString(), metadata.getName(), metadata.getDescription(),
+                userId, LocalDateTime.now(), file.getSize());
+        file.transferTo(dataFile(job.id));
+        job.persist();
+        jobs.put(job.id, job);
+        try {
+            workers.execute(() -> work(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteQuietly(dataFile(job.id));
+            deleteQuietly(jobFile(job.id));
+            throw busy();
+        }
+        return toResponse(job);
+    }
+
+    private GlobalExceptionHandler.ServiceUnavailableException busy() {
+        return new GlobalExceptionHandler.ServiceUnavailableException("Upload queue is full, please retry shortly", retryAfterSeconds);
+    }
+
+    public LibraryDtos.UploadJobResponse getJob(String jobId, Long userId, boolean isAdmin) {
+        UploadJob job = jobs.get(jobId);
+        if (job == null) throw new GlobalExceptionHandler.ResourceNotFoundException("Upload job not found");
+        if (!job.userId.equals(userId) && !isAdmin)
+            throw new GlobalExceptionHandler.ForbiddenException("Not authorized");
+        return toResponse(job);
+    }
+
+    private void work(UploadJob first) {
+        for (UploadJob job = first; job != null && !workers.isShutdown(); job = backlog.poll()) {
+            run(job);
+        }
+    }
+
+    private void run(UploadJob job) {
+        job.update(Status.UPLOADING, PICKED_UP, null, null);
+        try {
+            LibraryDtos.BookUploadRequest metadata = new LibraryDtos.BookUploadRequest();
+            metadata.setName(job.name);
+            metadata.setDescription(job.description);
+            // An earlier run may have saved the book and died before it could write DONE
+            Long bookId = bookService.findBookIdByUploadJob(job.id).orElse(null);
+            if (bookId == null) bookId = save(job, metadata).getId();
+            job.update(Status.DONE, 100, bookId, null);
+        } catch (Exception e) {
+            // Interrupted by shutdown: keep the spooled data so the job is resumed on restart
+            if (workers.isShutdown()) return;
+            System.err.println("Upload job " + job.id + " failed: " + e.getMessage());
+            job.update(Status.FAILED, 100, null, e.getMessage());
+        }
+        deleteQuietly(dataFile(job.id));
+    }
+
+    private LibraryDtos.BookResponse save(UploadJob job, LibraryDtos.BookUploadRequest metadata) throws IOException {
+        // The file reached Cloudinary in an earlier run: only the book is left to save
+        if (job.upload != null) {
+            job.update(Status.UPLOADING, SAVING, null, null);
+            return bookService.saveUploadedBook(metadata, job.upload, job.size, job.userId, job.id);
+        }
+        File file = dataFile(job.id).toFile();
+        long transferStart = System.nanoTime();
+        job.transferStartedAt = transferStart;
+        job.expectedTransferMs = Math.max(1, (long) (job.size / bytesPerMs));
+        return bookService.uploadBook(metadata, file, job.userId, job.id, result -> {
+            recordThroughput(job.size, System.nanoTime() - transferStart);
+            job.recordUpload(result);
+        });
+    }
+
+    private void recordThroughput(long bytes, long nanos) {
+        double millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+        bytesPerMs = bytesPerMs * (1 - THROUGHPUT_ALPHA) + (bytes / millis) * THROUGHPUT_ALPHA;
+    }
+
+    // Re-scan the spool: finished jobs stay queryable, interrupted ones are queued again
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeSpooledJobs() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "*.job")) {
+            for (Path file : files) {
+                UploadJob job;
+                try {
+                    job = loadJob(file);
+                } catch (Exception e) {
+                    System.err.println("Skipping unreadable upload job " + file + ": " + e.getMessage());
+                    continue;
+                }
+                jobs.put(job.id, job);
+                if (job.status == Status.QUEUED || job.status == Status.UPLOADING) {
+                    if (job.upload != null || Files.exists(dataFile(job.id))) {
+                        job.update(Status.QUEUED, 0, null, null);
+                        try {
+                            workers.execute(() -> work(job));
+                        } catch (RejectedExecutionException e) {
+                            backlog.add(job);
+                        }
+                    } else {
+                        job.update(Status.FAILED, 100, null, "Spooled file lost before upload");
+                    }
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.job-purge-ms:3600000}")
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(retentionMs));
+        jobs.values().removeIf(job -> {
+            boolean expired = (job.status == Status.DONE || job.status == Status.FAILED) && job.createdAt.isBefore(cutoff);
+            if (expired) deleteQuietly(jobFile(job.id));
+            return expired;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs keep their spooled data and are resumed on the next start
+        workers.shutdownNow();
+    }
+
+    private LibraryDtos.UploadJobResponse toResponse(UploadJob job) {
+        LibraryDtos.BookResponse book = null;
+        if (job.status == Status.DONE && job.bookId != null) {
+            try {
+                book = bookService.getBook(job.bookId);
+            } catch (GlobalExceptionHandler.ResourceNotFoundException e) {
+                // Book was deleted after the job finished
+            }
+        }
+        return LibraryDtos.UploadJobResponse.builder()
+                .jobId(job.id)
+                .status(job.status.name())
+                .progress(job.currentProgress())
+                .error(job.error)
+                .book(book)
+                .createdAt(job.createdAt)
+                .build();
+    }
+
+    private UploadJob loadJob(Path file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        // Job files written before the size was recorded: the spooled data still has it
+        String size = props.getProperty("size");
+        UploadJob job = new UploadJob(props.getProperty("id"), props.getProperty("name"), props.getProperty("description"),
+                Long.valueOf(props.getProperty("userId")), LocalDateTime.parse(props.getProperty("createdAt")),
+                size != null ? Long.parseLong(size) : dataFile(props.getProperty("id")).toFile().length());
+        job.status = Status.valueOf(props.getProperty("status"));
+        job.progress = Integer.parseInt(props.getProperty("progress", "0"));
+        String bookId = props.getProperty("bookId");
+        job.bookId = bookId == null ? null : Long.valueOf(bookId);
+        job.error = props.getProperty("error");
+        String publicId = props.getProperty("upload.publicId");
+        if (publicId != null) {
+            job.upload = new CloudinaryManager.UploadResult(publicId, props.getProperty("upload.url"),
+                    props.getProperty("upload.format"), props.getProperty("upload.resourceType"),
+                    Integer.parseInt(props.getProperty("upload.accountIndex")));
+        }
+        return job;
+    }
+
+    private Path dataFile(String jobId) {
+        return spoolDir.resolve(jobId + ".data");
+    }
+
+    private Path jobFile(String jobId) {
+        return spoolDir.resolve(jobId + ".job");
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+
+    private final class UploadJob {
+        final String id;
+        final String name;
+        final String description;
+        final Long userId;
+        final LocalDateTime createdAt;
+        final long size;
+        volatile Status status = Status.QUEUED;
+        volatile int progress;
+        volatile Long bookId;
+        volatile String error;
+        // The file in Cloudinary, recorded before the book is saved
+        volatile CloudinaryManager.UploadResult upload;
+        // Set when the Cloudinary transfer starts; only kept in memory
+        volatile long transferStartedAt;
+        volatile long expectedTransferMs;
+        // Not synchronized: a virtual thread blocked on file I/O inside a monitor would pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+
+        UploadJob(String id, String name, String description, Long userId, LocalDateTime createdAt, long size) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.userId = userId;
+            this.createdAt = createdAt;
+            this.size = size;
+        }
+
+        void update(Status status, int progress, Long bookId, String error) {
+            lock.lock();
+            try {
+                this.status = status;
+                this.progress = progress;
+                this.bookId = bookId;
+                this.error = error;
+                persist();
+            } catch (IOException e) {
+                System.err.println("Could not persist upload job " + id + ": " + e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void recordUpload(CloudinaryManager.UploadResult upload) {
+            lock.lock();
+            try {
+                this.upload = upload;
+                update(Status.UPLOADING, SAVING, null, null);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Between 10 and 90 while the transfer runs, the persisted stage value otherwise
+        int currentProgress() {
+            int stage = progress;
+            if (status != Status.UPLOADING || stage != PICKED_UP || transferStartedAt == 0) return stage;
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - transferStartedAt);
+            return 10 + (int) (80 * Math.min(1.0, (double) elapsedMs / expectedTransferMs));
+        }
+
+        void persist() throws IOException {
+            lock.lock();
+            try {
+                write();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Written to a temp file and moved over the old one, so a crash never leaves a torn job file
+        private void write() throws IOException {
+            Properties props = new Properties();
+            props.setProperty("id", id);
+            props.setProperty("name", name == null ? "" : name);
+            props.setProperty("description", description == null ? "" : description);
+            props.setProperty("userId", String.valueOf(userId));
+            props.setProperty("createdAt", createdAt.toString());
+            props.setProperty("size", String.valueOf(size));
+            props.setProperty("status", status.name());
+            props.setProperty("progress", String.valueOf(progress));
+            if (bookId != null) props.setProperty("bookId", String.valueOf(bookId));
+            if (error != null) props.setProperty("error", error);
+            CloudinaryManager.UploadResult upload = this.upload;
+            if (upload != null) {
+                props.setProperty("upload.publicId", upload.publicId());
+                props.setProperty("upload.url", upload.url());
+                if (upload.format() != null) props.setProperty("upload.format", upload.format());
+                props.setProperty("upload.resourceType", upload.resourceType());
+                props.setProperty("upload.accountIndex", String.valueOf(upload.accountIndex()));
+            }
+            Path target = jobFile(id);
+            Path temp = spoolDir.resolve(id + ".job.tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                props.store(out, null);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
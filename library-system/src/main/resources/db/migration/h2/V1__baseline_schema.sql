@@ -0,0 +1,74 @@
+-- H2 (MySQL mode) copy of mysql/V1 for the loadtest profile and the benchmarks, which always
+-- start from an empty in-memory database. Only the sequences differ: H2 has real ones.
+
+CREATE TABLE users (
+    id            BIGINT       NOT NULL,
+    username      VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    mobile        VARCHAR(255),
+    role          VARCHAR(16),
+    active        BIT          NOT NULL,
+    created_at    DATETIME(6),
+    last_login    DATETIME(6),
+    uploads_count INT          NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE books (
+    id            BIGINT        NOT NULL,
+    name          VARCHAR(255),
+    description   VARCHAR(1000),
+    owner_id      BIGINT,
+    public_id     VARCHAR(255),
+    account_index INT           NOT NULL,
+    size          BIGINT        NOT NULL,
+    format        VARCHAR(255),
+    view_url      VARCHAR(255),
+    download_url  VARCHAR(255),
+    created_at    DATETIME(6),
+    updated_at    DATETIME(6),
+    downloads     INT           NOT NULL,
+    deleted       BIT           NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE book_pages_preview (
+    book_id    BIGINT NOT NULL,
+    page_index INT    NOT NULL,
+    image_url  VARCHAR(1000),
+    PRIMARY KEY (book_id, page_index),
+    CONSTRAINT fk_book_pages_preview_book FOREIGN KEY (book_id) REFERENCES books (id)
+);
+
+CREATE TABLE password_reset_token (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    email      VARCHAR(255),
+    otp        VARCHAR(255),
+    expires_at DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE audit_log (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT,
+    action     VARCHAR(255),
+    ip         VARCHAR(255),
+    user_agent VARCHAR(255),
+    timestamp  DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE admin_action_log (
+    id             BIGINT NOT NULL AUTO_INCREMENT,
+    admin_id       BIGINT,
+    target_user_id BIGINT,
+    action         VARCHAR(255),
+    timestamp      DATETIME(6),
+    PRIMARY KEY (id)
+);
+
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,15 @@
+-- H2 copy of mysql/V2 (same indexes). The sequence repair is MySQL-only: H2 databases are always new.
+
+-- BookRepository.findByOwnerIdAndDeletedFalse / findByOwnerId: equality on owner_id and deleted,
+-- rows come back already ordered by created_at
+CREATE INDEX idx_books_owner_deleted_created ON books (owner_id, deleted, created_at);
+
+-- BookRepository.findByDeletedFalse (sorted by createdAt), countByDeletedFalse, findLatest and
+-- the keyset seek in findLatestBefore (created_at, id) < (?, ?)
+CREATE INDEX idx_books_deleted_created_id ON books (deleted, created_at, id);
+
+-- BookRepository.sumSizeByAccountIndex: covering index, the GROUP BY never touches the rows
+CREATE INDEX idx_books_deleted_account_size ON books (deleted, account_index, size);
+
+-- PasswordResetRepository.findByEmailAndOtp
+CREATE INDEX idx_password_reset_token_email_otp ON password_reset_token (email, otp);
@@ -0,0 +1,17 @@
+-- H2 copy of mysql/V4.
+
+-- Outbox of Cloudinary files still to be deleted. BookService.deleteBook inserts a row in the same
+-- transaction as the soft delete; RemoteDeleteReaper removes it once Cloudinary confirmed.
+CREATE TABLE pending_remote_delete (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    public_id       VARCHAR(255) NOT NULL,
+    account_index   INT          NOT NULL,
+    attempts        INT          NOT NULL,
+    next_attempt_at DATETIME(6)  NOT NULL,
+    created_at      DATETIME(6),
+    last_error      VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+-- PendingRemoteDeleteRepository.findDue: rows whose next attempt is due, oldest first
+CREATE INDEX idx_pending_remote_delete_due ON pending_remote_delete (next_attempt_at);
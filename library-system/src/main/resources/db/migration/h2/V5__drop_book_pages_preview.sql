@@ -0,0 +1,5 @@
+-- H2 copy of mysql/V5.
+
+-- Preview URLs are built from public_id/account_index on every read (BookService.previews), so
+-- the five rows each upload wrote here were never read back. Book no longer maps the collection.
+DROP TABLE book_pages_preview;
@@ -0,0 +1,16 @@
+-- H2 copy of mysql/V7.
+
+-- Cloudinary resource type of each file (image, raw or video). Uploads use resource_type=auto and
+-- Cloudinary looks ids up per type, so deletes must name the type the file was stored under: a
+-- raw file deleted as an image is reported "not_found" and stays in the account.
+ALTER TABLE books ADD COLUMN resource_type VARCHAR(16) NOT NULL DEFAULT 'image';
+ALTER TABLE pending_remote_delete ADD COLUMN resource_type VARCHAR(16) NOT NULL DEFAULT 'image';
+
+-- Existing books: the type is part of the delivery URL (.../<cloud>/<resource_type>/upload/...)
+UPDATE books SET resource_type = 'raw' WHERE view_url LIKE '%/raw/upload/%';
+UPDATE books SET resource_type = 'video' WHERE view_url LIKE '%/video/upload/%';
+
+-- Queued deletes take the type of their book; orphans of failed saves keep the default
+UPDATE pending_remote_delete
+SET resource_type = (SELECT MIN(b.resource_type) FROM books b WHERE b.public_id = pending_remote_delete.public_id)
+WHERE EXISTS (SELECT 1 FROM books b WHERE b.public_id = pending_remote_delete.public_id);
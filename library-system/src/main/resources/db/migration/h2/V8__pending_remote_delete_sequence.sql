@@ -0,0 +1,5 @@
+-- H2 copy of mysql/V8, with a real sequence. H2 databases are always new, so it starts at 1.
+
+ALTER TABLE pending_remote_delete ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE pending_remote_delete_seq START WITH 1 INCREMENT BY 50;
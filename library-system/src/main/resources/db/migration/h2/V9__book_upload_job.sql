@@ -0,0 +1,7 @@
+-- H2 copy of mysql/V9.
+
+-- Async upload job that created the book (UploadJobService). A job re-run after a crash between
+-- the book insert and its DONE write looks its book up here instead of inserting a second one;
+-- the unique index also rejects a second insert outright. NULL for synchronous uploads.
+ALTER TABLE books ADD COLUMN upload_job_id VARCHAR(36) NULL;
+CREATE UNIQUE INDEX uk_books_upload_job_id ON books (upload_job_id);
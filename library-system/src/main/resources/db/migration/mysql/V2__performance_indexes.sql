@@ -0,0 +1,26 @@
+-- Composite indexes matched to the repository queries; each comment names the method it serves.
+
+-- BookRepository.findByOwnerIdAndDeletedFalse / findByOwnerId: equality on owner_id and deleted,
+-- rows come back already ordered by created_at
+CREATE INDEX idx_books_owner_deleted_created ON books (owner_id, deleted, created_at);
+
+-- BookRepository.findByDeletedFalse (sorted by createdAt), countByDeletedFalse, findLatest and
+-- the keyset seek in findLatestBefore (created_at, id) < (?, ?)
+CREATE INDEX idx_books_deleted_created_id ON books (deleted, created_at, id);
+
+-- BookRepository.sumSizeByAccountIndex: covering index, the GROUP BY never touches the rows
+CREATE INDEX idx_books_deleted_account_size ON books (deleted, account_index, size);
+
+-- PasswordResetRepository.findByEmailAndOtp
+CREATE INDEX idx_password_reset_token_email_otp ON password_reset_token (email, otp);
+
+-- Databases baselined from ddl-auto=update may predate the pooled sequences (or have the tables
+-- with next_val still at 1): create them if missing and move them past every existing id.
+-- The stored value is the top of the next 50-id block, hence MAX(id) + 50.
+CREATE TABLE IF NOT EXISTS books_seq (next_val BIGINT);
+INSERT INTO books_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM books_seq);
+UPDATE books_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM books));
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT);
+INSERT INTO users_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM users_seq);
+UPDATE users_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM users));
@@ -0,0 +1,3 @@
+-- OtpStore sweeper: DELETE FROM password_reset_token WHERE expires_at < ? runs on an index
+-- instead of scanning every token ever issued.
+CREATE INDEX idx_password_reset_token_expires_at ON password_reset_token (expires_at);
@@ -0,0 +1,3 @@
+-- Preview URLs are built from public_id/account_index on every read (BookService.previews), so
+-- the five rows each upload wrote here were never read back. Book no longer maps the collection.
+DROP TABLE book_pages_preview;
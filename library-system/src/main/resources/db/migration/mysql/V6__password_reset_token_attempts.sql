@@ -0,0 +1,3 @@
+-- Wrong OTP guesses per token. With auth.otp.mirror-to-db every node verifies against this row,
+-- so the attempt limit holds across nodes instead of per node.
+ALTER TABLE password_reset_token ADD COLUMN attempts INT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- PendingRemoteDelete moves from AUTO_INCREMENT to a pooled sequence like Book and User, so the
+-- outbox rows of a bulk discard are inserted in one JDBC batch instead of one round trip each.
+-- The stored value is the top of the next 50-id block, past every existing id.
+ALTER TABLE pending_remote_delete MODIFY id BIGINT NOT NULL;
+
+CREATE TABLE pending_remote_delete_seq (next_val BIGINT);
+INSERT INTO pending_remote_delete_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM pending_remote_delete;
@@ -0,0 +1,41 @@
+package com.library;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Registered as Hibernate's statement inspector in the test profile. Hibernate passes every SQL
+// string it prepares through inspect(), once per prepared statement (a JDBC batch is one), so the
+// recorded list is exactly what a repository call sends. Recording is per thread, background jobs
+// running meanwhile do not show up.
+public class SqlStatementRecorder implements StatementInspector {
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDING.get();
+        if (statements != null) statements.add(sql);
+        return sql;
+    }
+
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    // The statements prepared on this thread while the action runs, in order
+    public static List<String> record(Action action) throws Exception {
+        List<String> statements = new ArrayList<>();
+        RECORDING.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDING.remove();
+        }
+        return statements;
+    }
+
+    public static long count(List<String> statements, String prefix) {
+        return statements.stream().filter(sql -> sql.trim().toLowerCase().startsWith(prefix)).count();
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RateLimitFilterTest {
+
+    // upload: burst 2; every other route keeps a roomy limit
+    private final RateLimitFilter filter = new RateLimitFilter(mock(JwtUtils.class), new ObjectMapper(), new SimpleMeterRegistry(),
+            true, 1000, 600_000, 100, 100, 100, 100, 100, 100, 100, 100, 1, 2, 100, 100);
+
+    @Test
+    void syncAndAsyncUploadsShareOneBucket() throws Exception {
+        assertThat(post("/api/books", "10.0.0.1")).isEqualTo(200);
+        assertThat(post("/api/books/uploads", "10.0.0.1")).isEqualTo(200);
+
+        assertThat(post("/api/books/uploads", "10.0.0.1")).isEqualTo(429);
+        assertThat(post("/api/books", "10.0.0.1")).isEqualTo(429);
+        // Keyed by client: another address still has its burst
+        assertThat(post("/api/books/uploads", "10.0.0.2")).isEqualTo(200);
+    }
+
+    private int post(String path, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
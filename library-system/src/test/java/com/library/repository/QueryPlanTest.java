@@ -0,0 +1,105 @@
+package com.library.repository;
+
+import com.library.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// EXPLAIN on the SQL the repository methods actually send (recorded by SqlStatementRecorder), so
+// a changed derived query, @Query or index shows up here instead of in production
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordResetRepository passwordResetRepository;
+    @Autowired
+    private PendingRemoteDeleteRepository pendingRemoteDeleteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void seed() {
+        // Enough rows that a scan is never the cheaper plan
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books WHERE name = 'plan'", Long.class) > 0) return;
+        List<Object[]> books = new ArrayList<>();
+        for (long i = 0; i < 5000; i++) {
+            books.add(new Object[]{8_000_000 + i, i % 50, (int) (i % 5), i * 10, now.minusMinutes(i), i % 10 == 0});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (id, name, owner_id, account_index, size, created_at, deleted, downloads) "
+                + "VALUES (?, 'plan', ?, ?, ?, ?, ?, 0)", books);
+        List<Object[]> tokens = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) tokens.add(new Object[]{"plan" + i + "@test.local", String.valueOf(100000 + i), now.plusMinutes(i - 1000)});
+        jdbcTemplate.batchUpdate("INSERT INTO password_reset_token (email, otp, expires_at) VALUES (?, ?, ?)", tokens);
+        List<Object[]> deletes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) deletes.add(new Object[]{8_000_000L + i, "library_books/plan-" + i, now.plusMinutes(i - 1000)});
+        jdbcTemplate.batchUpdate("INSERT INTO pending_remote_delete (id, public_id, account_index, attempts, next_attempt_at) VALUES (?, ?, 0, 0, ?)", deletes);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void bookQueriesUseAnIndex() throws Exception {
+        assertIndexed(() -> bookRepository.findByOwnerIdAndDeletedFalse(7L, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertIndexed(() -> bookRepository.findByOwnerId(7L));
+        assertIndexed(() -> bookRepository.findByDeletedFalse(PageRequest.of(3, 20, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertIndexed(() -> bookRepository.findLatest(PageRequest.ofSize(21)));
+        assertIndexed(() -> bookRepository.findLatestBefore(now.minusMinutes(2500), 8_002_500L, PageRequest.ofSize(21)));
+        assertIndexed(() -> bookRepository.findSummariesByIdIn(List.of(8_000_001L, 8_000_002L, 8_000_003L)));
+        assertIndexed(() -> bookRepository.findSearchDocumentsAfter(8_002_500L, PageRequest.ofSize(500)));
+        assertIndexed(() -> bookRepository.sumSizeByAccountIndex());
+        assertIndexed(() -> bookRepository.countByDeletedFalse());
+        assertIndexed(() -> bookRepository.findIdByUploadJobId("plan-job"));
+    }
+
+    @Test
+    void authAndOutboxQueriesUseAnIndex() throws Exception {
+        assertIndexed(() -> userRepository.findByUsername("plan-reader"));
+        assertIndexed(() -> userRepository.findByEmail("plan-reader@test.local"));
+        assertIndexed(() -> userRepository.findActiveById(1L));
+        assertIndexed(() -> passwordResetRepository.findFirstByEmail("plan7@test.local"));
+        assertIndexed(() -> passwordResetRepository.deleteByExpiresAtBefore(now.minusDays(1)));
+        assertIndexed(() -> pendingRemoteDeleteRepository.findDue(now.minusMinutes(500), PageRequest.ofSize(100)));
+    }
+
+    @Test
+    void unindexedQueryIsReportedAsScan() {
+        // Guards the check itself: H2 must still name full scans "tableScan"
+        assertThat(explain("SELECT id FROM books WHERE name = ?")).contains("tableScan");
+    }
+
+    private void assertIndexed(SqlStatementRecorder.Action call) throws Exception {
+        List<String> statements = SqlStatementRecorder.record(call);
+        assertThat(statements).as("statements recorded").isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(plan).as("plan of %s", sql).doesNotContain("tableScan");
+        }
+    }
+
+    // H2 plans do not depend on parameter values, so every placeholder is bound to NULL
+    private String explain(String sql) {
+        List<Map<String, Object>> rows = jdbcTemplate.query("EXPLAIN " + sql, ps -> {
+            int parameters = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) ps.setObject(i, null);
+        }, (rs, n) -> Map.of("plan", rs.getString(1)));
+        return rows.stream().map(row -> (String) row.get("plan")).reduce("", String::concat);
+    }
+}
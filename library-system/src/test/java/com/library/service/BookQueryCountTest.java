@@ -0,0 +1,120 @@
+package com.library.service;
+
+import com.library.model.Book;
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Listing, search and detail reads issue a fixed number of statements, however many rows a page holds
+@SpringBootTest
+@ActiveProfiles("test")
+class BookQueryCountTest {
+
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookSearchIndex searchIndex;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics stats;
+    private String word;
+    private List<Book> books;
+
+    @BeforeEach
+    void seed() {
+        stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        word = "q" + UUID.randomUUID().toString().replace("-", "");
+        books = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            books.add(Book.builder()
+                    .name(word + " volume " + i).description("Query count fixture").ownerId(1L)
+                    .publicId("library_books/" + word + "-" + i).format("pdf").size(1024)
+                    .createdAt(LocalDateTime.now()).build());
+        }
+        books = bookRepository.saveAll(books);
+        searchIndex.rebuild(); // index the rows saved above, bypassing BookService
+        stats.clear();
+    }
+
+    @Test
+    void listingPageIsOneSelectPlusOneCount() {
+        bookService.searchBooks(null, PageRequest.of(0, 5));
+        long smallPage = stats.getPrepareStatementCount();
+        stats.clear();
+        bookService.searchBooks(null, PageRequest.of(0, 25));
+
+        assertThat(smallPage).isEqualTo(2);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void statementsAreCountedWithoutStatistics() {
+        double before = meterRegistry.counter("hibernate.statements", "kind", "select").count();
+        bookService.searchBooks(null, PageRequest.of(0, 5));
+
+        // Only this thread runs Hibernate queries here; the scheduled jobs wait an hour in this profile
+        assertThat(meterRegistry.counter("hibernate.statements", "kind", "select").count() - before).isEqualTo(2);
+    }
+
+    @Test
+    void scrollPageIsOneSelect() {
+        bookService.scrollBooks(null, null, 25, false);
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void indexedSearchPageIsOneSelect() {
+        var page = bookService.searchBooks(word, PageRequest.of(0, 25));
+
+        assertThat(page.getContent()).hasSize(25);
+        assertThat(page.getTotalElements()).isEqualTo(30);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void catalogVersionCostsNoQueryAndMovesWithEveryChange() {
+        String initial = bookService.catalogVersion();
+        assertThat(stats.getPrepareStatementCount()).isZero();
+
+        // A download on a book outside the requested page still has to invalidate the listing ETag
+        bookService.incrementDownload(books.get(29).getId(), 1L);
+        String afterDownload = bookService.catalogVersion();
+        bookService.onBookChanged(new BookService.BookChangedEvent(books.get(0).getId(), null, null, true));
+
+        assertThat(afterDownload).isNotEqualTo(initial);
+        assertThat(bookService.catalogVersion()).isNotEqualTo(afterDownload);
+    }
+
+    @Test
+    void detailIsOneSelectThenServedFromCache() {
+        Long id = books.get(0).getId();
+
+        var book = bookService.getBook(id);
+        assertThat(book.getPreviews()).hasSize(5);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+
+        bookService.getBook(id);
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
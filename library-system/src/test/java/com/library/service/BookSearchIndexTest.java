@@ -0,0 +1,143 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchIndex index = new BookSearchIndex(bookRepository);
+
+    @Test
+    void prefixMatchesEveryTermNotOnlyTheFirstFifty() {
+        // 120 distinct terms share the prefix "chem"; the last one sorts after the first 50
+        for (long id = 1; id <= 120; id++) {
+            index.index(id, "chem" + String.format("%03d", id), null);
+        }
+
+        BookSearchIndex.Hits hits = index.search("chem", 0, 10);
+
+        assertThat(hits.total()).isEqualTo(120);
+        assertThat(hits.ids()).hasSize(10);
+        assertThat(index.search("chem120", 0, 10).ids()).containsExactly(120L);
+    }
+
+    @Test
+    void everyWordMustMatchAndRemovedBooksDisappear() {
+        index.index(10L, "Organic chemistry", "Reactions and mechanisms");
+        index.index(5L, "Physical chemistry", null);
+        index.index(7L, "Organic farming", null);
+
+        assertThat(index.search("organic chem", 0, 10).ids()).containsExactly(10L);
+        assertThat(index.search("chemistry", 0, 10).total()).isEqualTo(2);
+
+        index.remove(10L, "Organic chemistry", "Reactions and mechanisms");
+
+        assertThat(index.search("organic chem", 0, 10).total()).isZero();
+        assertThat(index.search("chemistry", 0, 10).ids()).containsExactly(5L);
+    }
+
+    @Test
+    void lastWordShorterThanTheMinimumPrefixMatchesExactly() {
+        index.index(1L, "Go in action", null);
+        index.index(2L, "Golang recipes", null);
+        index.index(3L, "Good habits", null);
+
+        assertThat(index.search("go", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("gol", 0, 10).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void broadPrefixScoresTheMostFrequentTermsAndEstimatesTheTotal() {
+        // "chem000" is in every tenth book; each book also has its own term
+        int terms = BookSearchIndex.MAX_PREFIX_TERMS + 344;
+        for (long id = 1; id <= terms; id++) {
+            index.index(id, "chem" + String.format("%03d", id), id % 10 == 0 ? "chem000" : null);
+        }
+
+        BookSearchIndex.Hits hits = index.search("chem", 0, 10);
+
+        assertThat(hits.totalEstimated()).isTrue();
+        assertThat(hits.total()).isBetween((long) terms * 9 / 10, (long) terms * 11 / 10);
+        assertThat(hits.ids()).hasSize(10);
+        assertThat(index.search("chem0", 0, 10).totalEstimated()).isFalse();
+    }
+
+    @Test
+    void booksRemovedWhileARebuildReadsThemStayOut() {
+        // The delete commits after the rebuild has read its batch but before the batch is indexed
+        when(bookRepository.findSearchDocumentsAfter(eq(0L), any())).thenAnswer(inv -> {
+            index.remove(2L, "Deleted chemistry", null);
+            return List.of(doc(1L, "Kept chemistry"), doc(2L, "Deleted chemistry"));
+        });
+        when(bookRepository.findSearchDocumentsAfter(eq(2L), any())).thenReturn(List.of());
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.search("chemistry", 0, 10).ids()).containsExactly(1L);
+        assertThat(index.search("deleted", 0, 10).total()).isZero();
+    }
+
+    @Test
+    void shortPrefixOverALargeIndexStaysCheap() {
+        // 200k books of six words over a 20k-word vocabulary, a quarter of them titled "A ...".
+        // Before the minimum prefix, "a" expanded to every term starting with a (~1/26 of all
+        // postings); now it and "ab" match one term exactly and "abc" expands to a few dozen terms.
+        // In "a abc" the rarer "abc" seeds the candidates and "a" only updates them.
+        Random random = new Random(42);
+        List<String> vocabulary = new ArrayList<>();
+        while (vocabulary.size() < 20_000) vocabulary.add(word(random));
+        for (long id = 1; id <= 200_000; id++) {
+            StringBuilder name = new StringBuilder(id % 4 == 0 ? "A " : "");
+            for (int w = 0; w < 6; w++) name.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+            index.index(id, name.toString(), null);
+        }
+
+        for (String query : List.of("a", "ab", "abc", "a abc")) {
+            for (int warmUp = 0; warmUp < 5; warmUp++) index.search(query, 0, 20);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 10; run++) {
+                long start = System.nanoTime();
+                index.search(query, 0, 20);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            assertThat(best).as("best of 10 for '%s' in ns", query).isLessThan(50_000_000L);
+        }
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[3 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) letters[i] = (char) ('a' + random.nextInt(26));
+        return new String(letters);
+    }
+
+    private static BookRepository.SearchDocument doc(long id, String name) {
+        return new BookRepository.SearchDocument() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+        };
+    }
+}
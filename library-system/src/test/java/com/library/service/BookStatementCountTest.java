@@ -0,0 +1,104 @@
+package com.library.service;
+
+import com.library.SqlStatementRecorder;
+import com.library.dto.LibraryDtos;
+import com.library.model.User;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// JDBC batching: the books of one upload request reach the DB as one prepared INSERT, however many there are
+@SpringBootTest
+@ActiveProfiles("test")
+class BookStatementCountTest {
+
+    @MockBean
+    private CloudinaryManager cloudinaryManager;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RemoteDeleteReaper remoteDeleteReaper;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = "stmt-" + UUID.randomUUID();
+        userId = userRepository.save(User.builder()
+                .username(name).email(name + "@test.local").password("unused")
+                .role(User.Role.USER).active(true).createdAt(LocalDateTime.now()).build()).getId();
+        AtomicInteger uploaded = new AtomicInteger();
+        when(cloudinaryManager.uploadFile(any(MultipartFile.class))).thenAnswer(inv ->
+                new CloudinaryManager.UploadResult("library_books/" + name + "-" + uploaded.incrementAndGet(),
+                        "https://files.test/" + name, "pdf", "image", 0));
+    }
+
+    @Test
+    void bulkUploadOfTwentyBooksIsOneInsertStatement() throws Exception {
+        List<LibraryDtos.BookUploadRequest> metadata = new ArrayList<>();
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            metadata.add(request("Bulk " + i));
+            files.add(new MockMultipartFile("files", "bulk-" + i + ".pdf", "application/pdf", new byte[64]));
+        }
+
+        List<LibraryDtos.BulkUploadResponse> response = new ArrayList<>();
+        List<String> sql = SqlStatementRecorder.record(() -> response.add(bookService.bulkUpload(metadata, files, userId)));
+
+        assertThat(response.get(0).getUploaded()).isEqualTo(20);
+        assertThat(SqlStatementRecorder.count(sql, "insert into books")).isEqualTo(1);
+        assertThat(SqlStatementRecorder.count(sql, "update users")).isEqualTo(1);
+        // user check + INSERT + UPDATE; books_seq is only called when the 50-id block runs out
+        assertThat(withoutSequenceCalls(sql)).hasSize(3);
+    }
+
+    @Test
+    void singleUploadIsOneInsertAndOneUpdate() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "single.pdf", "application/pdf", new byte[64]);
+
+        List<String> sql = SqlStatementRecorder.record(() -> bookService.uploadBook(request("Single"), file, userId));
+
+        assertThat(SqlStatementRecorder.count(sql, "insert into books")).isEqualTo(1);
+        assertThat(SqlStatementRecorder.count(sql, "update users")).isEqualTo(1);
+        assertThat(withoutSequenceCalls(sql)).hasSize(3);
+    }
+
+    @Test
+    void discardingTwentyFilesIsOneOutboxInsert() throws Exception {
+        List<RemoteDeleteReaper.RemoteFile> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) files.add(new RemoteDeleteReaper.RemoteFile("library_books/discard-" + i, 0, "raw"));
+
+        List<String> sql = SqlStatementRecorder.record(() -> remoteDeleteReaper.enqueueAll(files));
+
+        assertThat(SqlStatementRecorder.count(sql, "insert into pending_remote_delete")).isEqualTo(1);
+    }
+
+    private static List<String> withoutSequenceCalls(List<String> sql) {
+        return sql.stream().filter(statement -> !statement.contains("books_seq")).toList();
+    }
+
+    static LibraryDtos.BookUploadRequest request(String name) {
+        LibraryDtos.BookUploadRequest request = new LibraryDtos.BookUploadRequest();
+        request.setName(name);
+        request.setDescription("Statement count fixture");
+        return request;
+    }
+}
@@ -0,0 +1,69 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Upload slots: with every account busy a waiting upload blocks until a slot is released
+class CloudinaryAccountRouterTest {
+
+    private CloudinaryAccountRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new CloudinaryAccountRouter(mock(BookRepository.class), 1L << 30, 3, 60_000, 5000, 1);
+        router.register(2);
+        assertThat(router.tryAcquireSlot(0)).isTrue();
+        assertThat(router.tryAcquireSlot(1)).isTrue();
+    }
+
+    @Test
+    void waiterBlocksUntilASlotIsReleased() throws Exception {
+        long seen = router.slotReleases();
+        assertThat(router.tryAcquireSlot(0)).isFalse();
+        AtomicReference<Thread> waiter = new AtomicReference<>();
+        CompletableFuture<Boolean> released = CompletableFuture.supplyAsync(() -> {
+            waiter.set(Thread.currentThread());
+            try {
+                return router.awaitSlotRelease(seen, TimeUnit.SECONDS.toNanos(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Parked on the condition, not spinning
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((waiter.get() == null || waiter.get().getState() != Thread.State.TIMED_WAITING) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(waiter.get().getState()).isEqualTo(Thread.State.TIMED_WAITING);
+        assertThat(released).isNotDone();
+
+        router.releaseSlot(1);
+        assertThat(released.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(router.tryAcquireSlot(1)).isTrue();
+    }
+
+    @Test
+    void releaseBeforeTheWaitIsNotMissed() throws Exception {
+        long seen = router.slotReleases();
+        router.releaseSlot(0);
+
+        assertThat(router.awaitSlotRelease(seen, 0)).isTrue();
+    }
+
+    @Test
+    void waitEndsAtTheTimeout() throws Exception {
+        long start = System.nanoTime();
+
+        assertThat(router.awaitSlotRelease(router.slotReleases(), TimeUnit.MILLISECONDS.toNanos(50))).isFalse();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+}
@@ -0,0 +1,125 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Account routing, failover and the circuit breaker against StubCloudinaryController, offline.
+// Each test wires its own router and manager to the stub; the cloud names pick the stub's
+// behaviour ("fail" always fails, "flaky" fails its first two uploads) and are unique per test.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "stub-cloudinary"})
+class CloudinaryFailoverTest {
+    private static final long QUOTA = 1L << 30;
+    private static final long OPEN_MS = 300;
+
+    @LocalServerPort
+    private int port;
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CloudinaryAccountRouter router;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        router = new CloudinaryAccountRouter(bookRepository, QUOTA, 2, OPEN_MS, 5000, 4);
+        file = Files.createTempFile("library-failover-", ".pdf").toFile();
+        Files.write(file.toPath(), new byte[1024]);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    void failingAccountsOpenTheirCircuitAndAHalfOpenProbeClosesIt() throws Exception {
+        String run = UUID.randomUUID().toString();
+        CloudinaryManager manager = manager("flaky-" + run, "fail-" + run);
+
+        // Two consecutive failures per account reach the threshold
+        assertThatThrownBy(() -> manager.uploadFile(file)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> manager.uploadFile(file)).isInstanceOf(IOException.class);
+        assertThat(router.isOpen(0)).isTrue();
+        assertThat(router.isOpen(1)).isTrue();
+
+        // Open circuits are skipped without calling the stub
+        assertThatThrownBy(() -> manager.uploadFile(file)).isInstanceOf(IOException.class);
+        assertThat(meterRegistry.counter("cloudinary.circuit.skipped", "account", "0").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("cloudinary.circuit.skipped", "account", "1").count()).isEqualTo(1);
+
+        // After the cool-down each account gets one probe: the flaky one has recovered and closes,
+        // a failed probe re-opens the other one right away
+        Thread.sleep(OPEN_MS + 50);
+        CloudinaryManager.UploadResult result = manager.uploadFile(file);
+
+        assertThat(result.accountIndex()).isZero();
+        assertThat(router.isOpen(0)).isFalse();
+        assertThat(router.isOpen(1)).isTrue();
+    }
+
+    @Test
+    void trafficShiftsToHealthyAndLessLoadedAccounts() throws Exception {
+        String run = UUID.randomUUID().toString();
+        CloudinaryManager manager = manager("fail-" + run, "nearly-full-" + run, "roomy-" + run);
+        when(bookRepository.sumSizeByAccountIndex()).thenReturn(List.of(usage(1, QUOTA * 95 / 100), usage(2, QUOTA / 10)));
+        router.refreshUsage();
+
+        // Account 0 is empty and ranks first until it fails; then the emptier healthy account takes everything
+        for (int i = 0; i < 5; i++) {
+            assertThat(manager.uploadFile(file).accountIndex()).isEqualTo(2);
+        }
+        assertThat(meterRegistry.counter("cloudinary.failover", "account", "0").count()).isEqualTo(1);
+        assertThat(router.usedBytes(1)).isEqualTo(QUOTA * 95 / 100);
+        assertThat(router.usedBytes(2)).isEqualTo(QUOTA / 10 + 5 * file.length());
+    }
+
+    private CloudinaryManager manager(String... cloudNames) {
+        CloudinaryManager manager = new CloudinaryManager(router, meterRegistry);
+        for (int i = 0; i < cloudNames.length; i++) {
+            ReflectionTestUtils.setField(manager, "c" + i + "Name", cloudNames[i]);
+            ReflectionTestUtils.setField(manager, "c" + i + "Key", "key" + i);
+            ReflectionTestUtils.setField(manager, "c" + i + "Secret", "secret" + i);
+        }
+        ReflectionTestUtils.setField(manager, "uploadPrefix", "http://127.0.0.1:" + port + "/stub-cloudinary");
+        ReflectionTestUtils.setField(manager, "largeUploadThreshold", 20L << 20);
+        ReflectionTestUtils.setField(manager, "chunkSize", 6 << 20);
+        ReflectionTestUtils.setField(manager, "slotWaitMs", 1000L);
+        ReflectionTestUtils.setField(manager, "connectTimeoutMs", 1000);
+        ReflectionTestUtils.setField(manager, "readTimeoutMs", 5000);
+        manager.init();
+        return manager;
+    }
+
+    private static BookRepository.AccountUsage usage(int accountIndex, long usedBytes) {
+        return new BookRepository.AccountUsage() {
+            @Override
+            public int getAccountIndex() {
+                return accountIndex;
+            }
+
+            @Override
+            public Long getUsedBytes() {
+                return usedBytes;
+            }
+        };
+    }
+}
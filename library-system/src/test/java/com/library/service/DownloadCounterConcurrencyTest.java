@@ -0,0 +1,105 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Increments race with flushes (read sum(), batched UPDATE, then subtract the written delta);
+// every increment must end up in the row
+@SpringBootTest
+@ActiveProfiles("test")
+class DownloadCounterConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int INCREMENTS_PER_THREAD = 20_000;
+
+    @Autowired
+    private DownloadCounter downloadCounter;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void noIncrementIsLostWhileFlushing() throws Exception {
+        long bookId = 9_000_001L;
+        jdbcTemplate.update("INSERT INTO books (id, name, account_index, size, downloads, deleted) VALUES (?, 'counter', 0, 0, 0, FALSE)", bookId);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean incrementing = new AtomicBoolean(true);
+        try {
+            Future<Integer> flusher = pool.submit(() -> {
+                start.await();
+                int flushes = 0;
+                while (incrementing.get()) {
+                    downloadCounter.flush();
+                    flushes++;
+                }
+                return flushes;
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) downloadCounter.increment(bookId);
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> worker : workers) worker.get();
+            incrementing.set(false);
+            assertThat(flusher.get()).as("flushes that raced with the increments").isPositive();
+        } finally {
+            pool.shutdownNow();
+        }
+        downloadCounter.flush();
+
+        Integer persisted = jdbcTemplate.queryForObject("SELECT downloads FROM books WHERE id = ?", Integer.class, bookId);
+        assertThat(persisted).isEqualTo(THREADS * INCREMENTS_PER_THREAD);
+        assertThat(downloadCounter.pending(bookId)).isZero();
+    }
+
+    // Readers keep re-caching the row while flushes move counts from pending into the DB; a row
+    // loaded before a flush committed must not stay cached once pending no longer holds its delta
+    @Test
+    void cachedDetailNeverKeepsAStaleCountAfterFlushes() throws Exception {
+        long bookId = 9_000_002L;
+        jdbcTemplate.update("INSERT INTO books (id, name, account_index, size, downloads, deleted) VALUES (?, 'cached', 0, 0, 0, FALSE)", bookId);
+        int rounds = 200;
+        int perRound = 50;
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                readers.add(pool.submit(() -> {
+                    while (running.get()) bookService.getBook(bookId);
+                    return null;
+                }));
+            }
+            for (int round = 1; round <= rounds; round++) {
+                for (int i = 0; i < perRound; i++) downloadCounter.increment(bookId);
+                downloadCounter.flush();
+                assertThat(bookService.getBook(bookId).getDownloads()).isEqualTo(round * perRound);
+            }
+            running.set(false);
+            for (Future<?> reader : readers) reader.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
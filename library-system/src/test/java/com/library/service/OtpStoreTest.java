@@ -0,0 +1,121 @@
+package com.library.service;
+
+import com.library.exception.GlobalExceptionHandler;
+import com.library.repository.PasswordResetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Codes are 100000-999999, so "000000" is always a wrong guess
+@SpringBootTest
+@ActiveProfiles("test")
+class OtpStoreTest {
+    private static final String WRONG = "000000";
+
+    @Autowired
+    private PasswordResetRepository resetRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private OtpStore store(long ttlMs, int maxPerWindow, int maxAttempts, boolean mirrorToDb) {
+        return new OtpStore(resetRepository, transactionTemplate, new SimpleMeterRegistry(),
+                ttlMs, 1000, maxPerWindow, 60_000, maxAttempts, mirrorToDb);
+    }
+
+    private static String email() {
+        return "otp-" + UUID.randomUUID() + "@test.local";
+    }
+
+    @Test
+    void correctCodeIsAcceptedOnce() {
+        OtpStore otps = store(60_000, 3, 5, false);
+        String email = email();
+        String code = otps.issue(email);
+
+        assertThat(otps.verify(email.toUpperCase(), code)).isTrue();
+        assertThat(otps.verify(email, code)).isFalse();
+    }
+
+    @Test
+    void expiredCodeIsRejected() throws InterruptedException {
+        OtpStore otps = store(50, 3, 5, false);
+        String email = email();
+        String code = otps.issue(email);
+
+        Thread.sleep(150);
+
+        assertThat(otps.verify(email, code)).isFalse();
+    }
+
+    @Test
+    void requestsBeyondTheWindowAreThrottled() {
+        OtpStore otps = store(60_000, 3, 5, false);
+        String email = email();
+        for (int i = 0; i < 3; i++) otps.issue(email);
+
+        assertThatThrownBy(() -> otps.issue(email))
+                .isInstanceOf(GlobalExceptionHandler.TooManyRequestsException.class)
+                .satisfies(e -> assertThat(((GlobalExceptionHandler.TooManyRequestsException) e).getRetryAfterSeconds()).isPositive());
+        // Other addresses are unaffected
+        otps.issue(email());
+    }
+
+    @Test
+    void codeIsDiscardedAfterMaxAttempts() {
+        OtpStore otps = store(60_000, 3, 3, false);
+        String email = email();
+        String code = otps.issue(email);
+
+        for (int i = 0; i < 3; i++) assertThat(otps.verify(email, WRONG)).isFalse();
+
+        assertThat(otps.verify(email, code)).isFalse();
+    }
+
+    @Test
+    void storedCodeIsVerifiedByAnyNodeAndConsumedOnce() {
+        OtpStore nodeA = store(60_000, 3, 5, true);
+        OtpStore nodeB = store(60_000, 3, 5, true);
+        String email = email();
+        String code = nodeA.issue(email);
+
+        assertThat(nodeB.verify(email, code)).isTrue();
+        assertThat(nodeA.verify(email, code)).isFalse();
+    }
+
+    @Test
+    void storedCodeCountsWrongGuessesAcrossNodes() {
+        OtpStore nodeA = store(60_000, 3, 4, true);
+        OtpStore nodeB = store(60_000, 3, 4, true);
+        String email = email();
+        String code = nodeA.issue(email);
+
+        assertThat(nodeA.verify(email, WRONG)).isFalse();
+        assertThat(nodeB.verify(email, WRONG)).isFalse();
+        assertThat(nodeA.verify(email, WRONG)).isFalse();
+        assertThat(resetRepository.findFirstByEmail(email)).hasValueSatisfying(t -> assertThat(t.getAttempts()).isEqualTo(3));
+        assertThat(nodeB.verify(email, WRONG)).isFalse();
+
+        assertThat(resetRepository.findFirstByEmail(email)).isEmpty();
+        assertThat(nodeA.verify(email, code)).isFalse();
+    }
+
+    @Test
+    void reissuingReplacesTheStoredCode() {
+        OtpStore otps = store(60_000, 3, 5, true);
+        String email = email();
+        String first = otps.issue(email);
+        String second = otps.issue(email);
+
+        assertThat(resetRepository.findAll().stream().filter(t -> t.getEmail().equals(email))).hasSize(1);
+        if (!first.equals(second)) assertThat(otps.verify(email, first)).isFalse();
+        assertThat(otps.verify(email, second)).isTrue();
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.service;
+
+import com.library.dto.LibraryDtos;
+import com.library.exception.GlobalExceptionHandler;
+import com.library.model.User;
+import com.library.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PasswordResetFlowTest {
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private OtpStore otpStore;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void otpResetsThePasswordOnce() {
+        String name = "reset-" + UUID.randomUUID();
+        String email = name + "@test.local";
+        User user = userRepository.save(User.builder()
+                .username(name).email(email).password(passwordEncoder.encode("old-password"))
+                .role(User.Role.USER).active(true).createdAt(LocalDateTime.now()).build());
+        String otp = otpStore.issue(email);
+
+        assertThatThrownBy(() -> authService.resetPassword(request(email, "000000", "guessed")))
+                .isInstanceOf(GlobalExceptionHandler.BadRequestException.class);
+        authService.resetPassword(request(email, otp, "new-password"));
+
+        assertThat(passwordEncoder.matches("new-password", userRepository.findById(user.getId()).orElseThrow().getPassword())).isTrue();
+        assertThatThrownBy(() -> authService.resetPassword(request(email, otp, "again")))
+                .isInstanceOf(GlobalExceptionHandler.BadRequestException.class);
+    }
+
+    @Test
+    void mixedCaseAddressResetsTheRegisteredUser() {
+        String name = "Reset-" + UUID.randomUUID();
+        LibraryDtos.RegisterRequest register = new LibraryDtos.RegisterRequest();
+        register.setUsername(name);
+        register.setEmail(" " + name + "@Test.Local");
+        register.setPassword("old-password");
+        authService.register(register);
+
+        String otp = otpStore.issue(name.toUpperCase() + "@TEST.LOCAL");
+        authService.resetPassword(request(name + "@test.LOCAL ", otp, "new-password"));
+
+        User user = userRepository.findByUsername(name).orElseThrow();
+        assertThat(user.getEmail()).isEqualTo(name.toLowerCase() + "@test.local");
+        assertThat(passwordEncoder.matches("new-password", user.getPassword())).isTrue();
+    }
+
+    private static LibraryDtos.ResetPasswordRequest request(String email, String otp, String newPassword) {
+        LibraryDtos.ResetPasswordRequest request = new LibraryDtos.ResetPasswordRequest();
+        request.setEmail(email);
+        request.setOtp(otp);
+        request.setNewPassword(newPassword);
+        return request;
+    }
+}
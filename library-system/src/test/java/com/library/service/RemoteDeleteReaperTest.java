@@ -0,0 +1,122 @@
+package com.library.service;
+
+import com.library.model.PendingRemoteDelete;
+import com.library.repository.PendingRemoteDeleteRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The reaper against a real CloudinaryManager whose Admin API calls go to a local stub. The stub
+// confirms every id except those containing "lost", which it leaves out of the reply.
+class RemoteDeleteReaperTest {
+
+    private final PendingRemoteDeleteRepository repository = mock(PendingRemoteDeleteRepository.class);
+    private final Map<String, List<String>> idsByResourceType = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private RemoteDeleteReaper reaper;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1_1/", this::handle);
+        server.start();
+
+        CloudinaryManager cloudinaryManager = new CloudinaryManager(mock(CloudinaryAccountRouter.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cloudinaryManager, "c0Name", "test0");
+        ReflectionTestUtils.setField(cloudinaryManager, "c0Key", "key0");
+        ReflectionTestUtils.setField(cloudinaryManager, "c0Secret", "secret0");
+        ReflectionTestUtils.setField(cloudinaryManager, "uploadPrefix", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(cloudinaryManager, "connectTimeoutMs", 1000);
+        ReflectionTestUtils.setField(cloudinaryManager, "readTimeoutMs", 5000);
+        cloudinaryManager.init();
+
+        reaper = new RemoteDeleteReaper(repository, cloudinaryManager, new SimpleMeterRegistry(), 1000, 60_000, 3_600_000, 30_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void deletesEachResourceTypeUnderItsOwnType() {
+        when(repository.findDue(any(), any())).thenReturn(List.of(
+                pending(1L, "library_books/a", "image"),
+                pending(2L, "library_books/b", "raw"),
+                pending(3L, "library_books/c", "raw")));
+
+        reaper.reap();
+
+        assertThat(idsByResourceType).containsOnlyKeys("image", "raw");
+        assertThat(idsByResourceType.get("image")).containsExactly("library_books/a");
+        assertThat(idsByResourceType.get("raw")).containsExactlyInAnyOrder("library_books/b", "library_books/c");
+        verify(repository).deleteAllByIdInBatch(List.of(1L));
+        verify(repository).deleteAllByIdInBatch(List.of(2L, 3L));
+        verify(repository, never()).markFailed(any(), any(), anyString());
+    }
+
+    @Test
+    void idsMissingFromTheReplyAreRetried() {
+        when(repository.findDue(any(), any())).thenReturn(List.of(
+                pending(1L, "library_books/a", "raw"),
+                pending(2L, "library_books/lost", "raw")));
+
+        reaper.reap();
+
+        verify(repository).deleteAllByIdInBatch(List.of(1L));
+        verify(repository).markFailed(eq(List.of(2L)), any(), anyString());
+    }
+
+    private static PendingRemoteDelete pending(Long id, String publicId, String resourceType) {
+        return PendingRemoteDelete.builder()
+                .id(id).publicId(publicId).accountIndex(0).resourceType(resourceType)
+                .nextAttemptAt(LocalDateTime.now()).createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    // The client sends bulk deletes as POST /v1_1/{cloudName}/resources/{resourceType}/{type}
+    // with a form body of _method=delete and public_ids[]=...
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String resourceType = path[path.length - 2];
+            StringJoiner statuses = new StringJoiner(",");
+            String form = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            for (String param : form.split("&")) {
+                String[] pair = param.split("=", 2);
+                if (pair.length < 2 || !URLDecoder.decode(pair[0], StandardCharsets.UTF_8).equals("public_ids[]")) continue;
+                String id = URLDecoder.decode(pair[1], StandardCharsets.UTF_8);
+                idsByResourceType.computeIfAbsent(resourceType, t -> new CopyOnWriteArrayList<>()).add(id);
+                if (!id.contains("lost")) statuses.add("\"" + id + "\":\"deleted\"");
+            }
+            byte[] body = ("{\"deleted\":{" + statuses + "},\"partial\":false}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.library.service;
+
+import com.library.dto.LibraryDtos;
+import com.library.model.User;
+import com.library.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// An upload only holds a pooled connection in its short DB phases, never while Cloudinary works.
+// More uploads than the pool has connections are parked inside the Cloudinary call at once.
+@SpringBootTest
+@ActiveProfiles("test")
+class UploadConnectionTest {
+
+    @MockBean
+    private CloudinaryManager cloudinaryManager;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void noConnectionIsHeldWhileCloudinaryUploads() throws Exception {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        int uploads = pool.getMaximumPoolSize() + 5;
+        String name = "pool-" + UUID.randomUUID();
+        Long userId = userRepository.save(User.builder()
+                .username(name).email(name + "@test.local").password("unused")
+                .role(User.Role.USER).active(true).createdAt(LocalDateTime.now()).build()).getId();
+
+        CountDownLatch inCloudinary = new CountDownLatch(uploads);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger uploaded = new AtomicInteger();
+        when(cloudinaryManager.uploadFile(any(MultipartFile.class))).thenAnswer(inv -> {
+            inCloudinary.countDown();
+            release.await();
+            return new CloudinaryManager.UploadResult("library_books/" + name + "-" + uploaded.incrementAndGet(),
+                    "https://files.test/" + name, "pdf", "image", 0);
+        });
+
+        LibraryDtos.BookUploadRequest metadata = new LibraryDtos.BookUploadRequest();
+        metadata.setName("Pool occupancy");
+        MultipartFile file = new MockMultipartFile("file", "pool.pdf", "application/pdf", new byte[64]);
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            List<Future<LibraryDtos.BookResponse>> inFlight = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                inFlight.add(executor.submit(() -> bookService.uploadBook(metadata, file, userId)));
+            }
+
+            // Held connections would make the extra uploads wait out Hikari's 30s connection-timeout
+            assertThat(inCloudinary.await(30, TimeUnit.SECONDS)).as("all uploads inside Cloudinary at once").isTrue();
+            // Parked uploads would hold theirs for good; background jobs only borrow one briefly
+            assertThat(awaitIdle(pool, 5000)).as("active connections while uploads are parked").isZero();
+            // Reads are served meanwhile
+            bookService.searchBooks(null, PageRequest.of(0, 5));
+
+            release.countDown();
+            for (Future<LibraryDtos.BookResponse> upload : inFlight) {
+                assertThat(upload.get(30, TimeUnit.SECONDS).getId()).isNotNull();
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static int awaitIdle(HikariDataSource pool, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        int active = pool.getHikariPoolMXBean().getActiveConnections();
+        while (active > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            active = pool.getHikariPoolMXBean().getActiveConnections();
+        }
+        return active;
+    }
+}
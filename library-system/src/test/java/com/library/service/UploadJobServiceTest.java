@@ -0,0 +1,191 @@
+package com.library.service;
+
+import com.library.dto.LibraryDtos;
+import com.library.exception.GlobalExceptionHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Async upload jobs against a mocked BookService: a job interrupted after the Cloudinary transfer
+// or after the book insert is resumed without uploading or saving twice, and a full queue refuses
+// new jobs.
+class UploadJobServiceTest {
+
+    private final BookService bookService = mock(BookService.class);
+    private Path spoolDir;
+    private UploadJobService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        spoolDir = Files.createTempDirectory("library-upload-jobs-");
+        when(bookService.findBookIdByUploadJob(anyString())).thenReturn(Optional.empty());
+        when(bookService.getBook(anyLong())).thenAnswer(inv -> LibraryDtos.BookResponse.builder().id(inv.getArgument(0)).build());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (service != null) service.shutdown();
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            for (Path file : files.toList()) Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(spoolDir);
+    }
+
+    @Test
+    void jobWhoseBookWasSavedIsNotRunAgain() throws Exception {
+        spoolInterruptedJob("job-saved", null);
+        when(bookService.findBookIdByUploadJob("job-saved")).thenReturn(Optional.of(42L));
+        service = service(1, 10);
+
+        service.resumeSpooledJobs();
+
+        LibraryDtos.UploadJobResponse job = awaitFinished("job-saved");
+        assertThat(job.getStatus()).isEqualTo("DONE");
+        assertThat(job.getBook().getId()).isEqualTo(42L);
+        verify(bookService, never()).uploadBook(any(), any(), any(), any(), any());
+        verify(bookService, never()).saveUploadedBook(any(), any(), anyLong(), any(), any());
+        assertThat(spoolDir.resolve("job-saved.data")).doesNotExist();
+    }
+
+    @Test
+    void jobWithATransferredFileOnlySavesTheBook() throws Exception {
+        CloudinaryManager.UploadResult upload = new CloudinaryManager.UploadResult(
+                "library_books/x", "https://cdn.test/raw/upload/x", null, "raw", 2);
+        spoolInterruptedJob("job-transferred", upload);
+        when(bookService.saveUploadedBook(any(), eq(upload), eq(4L), eq(7L), eq("job-transferred")))
+                .thenReturn(LibraryDtos.BookResponse.builder().id(43L).build());
+        service = service(1, 10);
+
+        service.resumeSpooledJobs();
+
+        assertThat(awaitFinished("job-transferred").getBook().getId()).isEqualTo(43L);
+        verify(bookService, never()).uploadBook(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void transferIsRecordedBeforeTheBookIsSaved() throws Exception {
+        CloudinaryManager.UploadResult upload = new CloudinaryManager.UploadResult(
+                "library_books/y", "https://cdn.test/image/upload/y.pdf", "pdf", "image", 1);
+        Properties recorded = new Properties();
+        when(bookService.uploadBook(any(), any(), eq(7L), anyString(), any())).thenAnswer(inv -> {
+            Consumer<CloudinaryManager.UploadResult> afterTransfer = inv.getArgument(4);
+            afterTransfer.accept(upload);
+            recorded.putAll(readJobFile(inv.getArgument(3)));
+            return LibraryDtos.BookResponse.builder().id(44L).build();
+        });
+        service = service(1, 10);
+
+        String jobId = service.submit(metadata(), file(), 7L).getJobId();
+
+        assertThat(awaitFinished(jobId).getStatus()).isEqualTo("DONE");
+        assertThat(recorded.getProperty("upload.publicId")).isEqualTo("library_books/y");
+        assertThat(recorded.getProperty("upload.accountIndex")).isEqualTo("1");
+        assertThat(recorded.getProperty("upload.resourceType")).isEqualTo("image");
+    }
+
+    @Test
+    void fullQueueRefusesNewJobsWith503() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookService.uploadBook(any(), any(), eq(7L), anyString(), any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(30, TimeUnit.SECONDS);
+            return LibraryDtos.BookResponse.builder().id(45L).build();
+        });
+        service = service(1, 1);
+
+        String running = service.submit(metadata(), file(), 7L).getJobId();
+        assertThat(started.await(30, TimeUnit.SECONDS)).isTrue();
+        String queued = service.submit(metadata(), file(), 7L).getJobId();
+
+        assertThatThrownBy(() -> service.submit(metadata(), file(), 7L))
+                .isInstanceOfSatisfying(GlobalExceptionHandler.ServiceUnavailableException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(5));
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            assertThat(files.filter(f -> f.toString().endsWith(".job")).count()).isEqualTo(2);
+        }
+
+        release.countDown();
+        assertThat(awaitFinished(running).getStatus()).isEqualTo("DONE");
+        assertThat(awaitFinished(queued).getStatus()).isEqualTo("DONE");
+    }
+
+    private UploadJobService service(int workers, int queueCapacity) throws IOException {
+        return new UploadJobService(bookService, spoolDir.toString(), workers, queueCapacity, 5, 86_400_000, false);
+    }
+
+    private LibraryDtos.UploadJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        LibraryDtos.UploadJobResponse job = service.getJob(jobId, 7L, false);
+        while (!job.getStatus().equals("DONE") && !job.getStatus().equals("FAILED") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = service.getJob(jobId, 7L, false);
+        }
+        return job;
+    }
+
+    // A job file as left behind by a node that died while the job was running
+    private void spoolInterruptedJob(String id, CloudinaryManager.UploadResult upload) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("id", id);
+        props.setProperty("name", "Resumed");
+        props.setProperty("description", "");
+        props.setProperty("userId", "7");
+        props.setProperty("createdAt", LocalDateTime.now().toString());
+        props.setProperty("size", "4");
+        props.setProperty("status", "UPLOADING");
+        props.setProperty("progress", "95");
+        if (upload != null) {
+            props.setProperty("upload.publicId", upload.publicId());
+            props.setProperty("upload.url", upload.url());
+            props.setProperty("upload.resourceType", upload.resourceType());
+            props.setProperty("upload.accountIndex", String.valueOf(upload.accountIndex()));
+        }
+        try (OutputStream out = Files.newOutputStream(spoolDir.resolve(id + ".job"))) {
+            props.store(out, null);
+        }
+        Files.write(spoolDir.resolve(id + ".data"), new byte[4]);
+    }
+
+    private Properties readJobFile(String id) throws IOException {
+        Properties props = new Properties();
+        try (var in = Files.newInputStream(spoolDir.resolve(id + ".job"))) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    private static LibraryDtos.BookUploadRequest metadata() {
+        LibraryDtos.BookUploadRequest metadata = new LibraryDtos.BookUploadRequest();
+        metadata.setName("Queued");
+        return metadata;
+    }
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("file", "book.pdf", "application/pdf", new byte[4]);
+    }
+}